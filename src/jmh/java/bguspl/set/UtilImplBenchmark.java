@@ -0,0 +1,119 @@
+package bguspl.set;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.logging.Logger;
+
+/**
+ * Micro benchmarks for the set checking hot path of UtilImpl (the dealer calls testSet on every claim and findSets
+ * on the remaining deck every round).
+ * Run with: mvn -P benchmark package && java -jar target/benchmarks.jar UtilImplBenchmark
+ * For only the sequential vs. parallel search on a large deck:
+ * java -jar target/benchmarks.jar "UtilImplBenchmark.find" -p featureCount=5 -p featureSize=4 -p deckCards=1024
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class UtilImplBenchmark {
+
+    /**
+     * The number of features on the cards (Config.featureCount).
+     */
+    @Param({"3", "4", "5"})
+    public int featureCount;
+
+    /**
+     * The number of choices for each feature (Config.featureSize).
+     */
+    @Param({"3", "4"})
+    public int featureSize;
+
+    /**
+     * The number of cards handed to findSets (capped by the deck size of the configuration: 1024 cards need
+     * FeatureCount 5 and FeatureSize 4, which is above the default parallel threshold).
+     */
+    @Param({"12", "21", "81", "1024"})
+    public int deckCards;
+
+    /**
+     * Config.parallelFindSetsThreshold (-1 searches with a single thread, 0 always splits the search, 256 is the
+     * default), to compare the sequential and the parallel search on the same cards.
+     */
+    @Param({"-1", "0", "256"})
+    public int parallelFindSetsThreshold;
+
+    private static final int CLAIMS = 64;
+
+    private Util util;
+    private List<Integer> deck;
+    private int[][] claims;
+    private int nextClaim;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Properties properties = new Properties();
+        properties.put("FeatureCount", Integer.toString(featureCount));
+        properties.put("FeatureSize", Integer.toString(featureSize));
+        properties.put("ParallelFindSetsThreshold", Integer.toString(parallelFindSetsThreshold));
+        properties.put("LogLevel", "OFF");
+        Config config = new Config(Logger.getAnonymousLogger(), properties);
+        util = new UtilImpl(config);
+
+        // a fixed seed keeps the compared runs on the same cards
+        Random random = new Random(42);
+        List<Integer> allCards = new ArrayList<>(config.deckSize);
+        for (int card = 0; card < config.deckSize; ++card)
+            allCards.add(card);
+        Collections.shuffle(allCards, random);
+        deck = new ArrayList<>(allCards.subList(0, Math.min(deckCards, config.deckSize)));
+
+        // a mix of legal sets (found in the deck) and random claims, like the ones the dealer receives
+        List<int[]> sets = util.findSets(deck, CLAIMS / 2);
+        claims = new int[CLAIMS][];
+        for (int i = 0; i < CLAIMS; ++i) {
+            if (i % 2 == 0 && i / 2 < sets.size()) {
+                claims[i] = sets.get(i / 2);
+            } else {
+                claims[i] = new int[config.featureSize];
+                for (int j = 0; j < claims[i].length; ++j)
+                    claims[i][j] = deck.get(random.nextInt(deck.size()));
+            }
+        }
+    }
+
+    private int[] nextClaim() {
+        int[] claim = claims[nextClaim];
+        nextClaim = (nextClaim + 1) % CLAIMS;
+        return claim;
+    }
+
+    @Benchmark
+    public boolean testSet() {
+        return util.testSet(nextClaim());
+    }
+
+    @Benchmark
+    public int[][] cardsToFeatures() {
+        return util.cardsToFeatures(nextClaim());
+    }
+
+    @Benchmark
+    public List<int[]> findFirstSet() {
+        return util.findSets(deck, 1);
+    }
+
+    @Benchmark
+    public void findAllSets(Blackhole blackhole) {
+        blackhole.consume(util.findSets(deck, Integer.MAX_VALUE));
+    }
+}
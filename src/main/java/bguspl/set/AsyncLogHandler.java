@@ -0,0 +1,230 @@
+package bguspl.set;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.logging.ErrorManager;
+import java.util.logging.Handler;
+import java.util.logging.LogRecord;
+
+/**
+ * A log handler that writes to a file from a background thread.
+ * The game threads only put their records in a bounded ring buffer (a compare and set on the buffer's tail), and a
+ * writer thread formats them and writes them in batches. If the buffer is full, records are dropped rather than
+ * blocking the game, and the number dropped is written to the log.
+ * When the file grows beyond a size limit it is rotated: file.log is renamed to file.log.1, file.log.1 to file.log.2
+ * and so on, keeping a bounded number of files.
+ */
+public class AsyncLogHandler extends Handler {
+
+    /**
+     * The longest the writer thread sleeps when there are no records.
+     */
+    private static final long IDLE_PARK_NANOS = 10_000_000;
+
+    /**
+     * The ring buffer: the records and a sequence number per slot (Vyukov's bounded queue). Slot i is free for the
+     * producer at position p when sequences[i] == p, and holds the record of position p when sequences[i] == p + 1.
+     */
+    private final LogRecord[] records;
+    private final AtomicLongArray sequences;
+    private final int mask;
+
+    /**
+     * The next position to produce at (shared by the game threads) and to consume from (writer thread only).
+     */
+    private final AtomicLong tail = new AtomicLong();
+    private long head;
+
+    /**
+     * The number of records that were consumed and flushed to the file (for flush()).
+     */
+    private volatile long flushed;
+
+    private final LongAdder dropped = new LongAdder();
+
+    private final String path;
+    private volatile long limitBytes;
+    private volatile int count;
+    private Writer writer;
+    private long writtenBytes;
+
+    private volatile boolean closed;
+    private final Thread writerThread;
+
+    /**
+     * The class constructor.
+     *
+     * @param path       - the path of the log file.
+     * @param capacity   - the number of records the buffer holds (rounded up to a power of two).
+     * @param limitBytes - the size after which the file is rotated (0 for no limit).
+     * @param count      - the number of files to keep when rotating (at least 1).
+     * @throws IOException if the file cannot be opened.
+     */
+    public AsyncLogHandler(String path, int capacity, long limitBytes, int count) throws IOException {
+        int size = Integer.highestOneBit(Math.max(capacity, 2) * 2 - 1);
+        this.records = new LogRecord[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++)
+            sequences.set(i, i);
+        this.mask = size - 1;
+        this.path = path;
+        setRotation(limitBytes, count);
+        this.writer = open();
+
+        writerThread = new Thread(this::writeLoop, "log-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Sets the size limit and the number of files to keep.
+     *
+     * @param limitBytes - the size after which the file is rotated (0 for no limit).
+     * @param count      - the number of files to keep when rotating (at least 1).
+     */
+    public void setRotation(long limitBytes, int count) {
+        this.limitBytes = limitBytes;
+        this.count = Math.max(count, 1);
+    }
+
+    @Override
+    public void publish(LogRecord record) {
+        if (closed || !isLoggable(record)) return;
+        long position = tail.get();
+        int slot;
+        while (true) {
+            slot = (int) (position & mask);
+            long difference = sequences.get(slot) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) break;
+                position = tail.get();
+            } else if (difference < 0) {
+                // the buffer is full: drop the record instead of waiting for the writer
+                dropped.increment();
+                return;
+            } else {
+                position = tail.get();
+            }
+        }
+        records[slot] = record;
+        sequences.set(slot, position + 1);
+    }
+
+    /**
+     * Waits until all the records published before the call are written to the file.
+     */
+    @Override
+    public void flush() {
+        long target = tail.get();
+        while (flushed < target && writerThread.isAlive()) {
+            LockSupport.unpark(writerThread);
+            LockSupport.parkNanos(1_000_000);
+        }
+    }
+
+    /**
+     * Writes the remaining records, stops the writer thread and closes the file.
+     */
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        LockSupport.unpark(writerThread);
+        try {
+            writerThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void writeLoop() {
+        try {
+            while (true) {
+                boolean done = closed; // read before draining, so that nothing published before close is lost
+                int written = drain();
+                if (written == 0) {
+                    if (done) break;
+                    LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                }
+            }
+        } finally {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                reportError(null, e, ErrorManager.CLOSE_FAILURE);
+            }
+        }
+    }
+
+    /**
+     * Formats and writes all the records in the buffer, then flushes the file.
+     *
+     * @return - the number of records written.
+     */
+    private int drain() {
+        int written = 0;
+        try {
+            long lost = dropped.sumThenReset();
+            if (lost > 0)
+                write(lost + " log records were dropped (the log buffer was full)" + System.lineSeparator());
+            while (true) {
+                int slot = (int) (head & mask);
+                if (sequences.get(slot) != head + 1) break;
+                LogRecord record = records[slot];
+                records[slot] = null;
+                sequences.set(slot, head + records.length);
+                head++;
+                try {
+                    write(getFormatter() != null ? getFormatter().format(record) : record.getMessage() + System.lineSeparator());
+                } catch (RuntimeException e) {
+                    reportError(null, e, ErrorManager.FORMAT_FAILURE);
+                }
+                written++;
+            }
+            if (written > 0 || lost > 0)
+                writer.flush();
+        } catch (IOException e) {
+            reportError(null, e, ErrorManager.WRITE_FAILURE);
+        }
+        flushed = head;
+        return written;
+    }
+
+    private void write(String text) throws IOException {
+        if (limitBytes > 0 && writtenBytes > 0 && writtenBytes + text.length() > limitBytes)
+            rotate();
+        writer.write(text);
+        writtenBytes += text.length(); // in chars, which is close enough for a size limit
+    }
+
+    private Writer open() throws IOException {
+        writtenBytes = new File(path).length();
+        return new BufferedWriter(new OutputStreamWriter(new FileOutputStream(path, true), StandardCharsets.UTF_8));
+    }
+
+    private void rotate() throws IOException {
+        writer.close();
+        for (int i = count - 1; i > 0; i--) {
+            File from = new File(i == 1 ? path : path + "." + (i - 1));
+            File to = new File(path + "." + i);
+            //noinspection ResultOfMethodCallIgnored
+            to.delete();
+            //noinspection ResultOfMethodCallIgnored
+            from.renameTo(to);
+        }
+        if (count == 1) {
+            //noinspection ResultOfMethodCallIgnored
+            new File(path).delete();
+        }
+        writer = open();
+    }
+}
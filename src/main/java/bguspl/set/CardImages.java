@@ -0,0 +1,142 @@
+package bguspl.set;
+
+import java.awt.*;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.IntFunction;
+
+/**
+ * The images of the cards, decoded when they are first needed.
+ * The images of the cards that are about to be displayed (see prefetch) are decoded in the background, and the
+ * decoded images are kept in a bounded LRU cache, so that the time and memory spent on images depend on the number of
+ * cards on the table rather than on the size of the deck. An image is decoded once: whoever needs it first (the
+ * background thread or get) decodes it, and the other one waits for that decode.
+ */
+public class CardImages {
+
+    /**
+     * The image of a card, decoded by the first thread that claims it.
+     */
+    private static class Entry extends CompletableFuture<Image> {
+
+        private final AtomicBoolean claimed = new AtomicBoolean();
+    }
+
+    /**
+     * Decodes the image of a card.
+     */
+    private final IntFunction<Image> loader;
+
+    /**
+     * The decoded (or being decoded) images, least recently used first.
+     */
+    private final LinkedHashMap<Integer, Entry> cache;
+
+    /**
+     * The thread that decodes the prefetched images.
+     */
+    private final ExecutorService prefetcher;
+
+    /**
+     * The class constructor.
+     *
+     * @param loader   - decodes the image of a card.
+     * @param capacity - the number of decoded images to keep.
+     */
+    public CardImages(IntFunction<Image> loader, int capacity) {
+        this.loader = loader;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Entry> eldest) {
+                return size() > capacity;
+            }
+        };
+        this.prefetcher = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "card-images");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Starts decoding the image of a card in the background, if it is not cached.
+     *
+     * @param card - the card.
+     */
+    public void prefetch(int card) {
+        Entry entry;
+        synchronized (cache) {
+            if (cache.containsKey(card)) return;
+            entry = new Entry();
+            cache.put(card, entry);
+        }
+        try {
+            prefetcher.execute(() -> decode(card, entry));
+        } catch (RejectedExecutionException ignored) {
+            // closed: get() decodes it
+        }
+    }
+
+    /**
+     * Returns the image of a card: the cached image, or the image being decoded in the background (waiting for it),
+     * or an image decoded now if nobody started decoding it.
+     *
+     * @param card - the card.
+     * @return - the image of the card.
+     */
+    public Image get(int card) {
+        Entry entry;
+        synchronized (cache) {
+            entry = cache.get(card);
+            if (entry == null) {
+                entry = new Entry();
+                cache.put(card, entry);
+            }
+        }
+        decode(card, entry);
+        try {
+            return entry.join();
+        } catch (CompletionException e) {
+            // the loader failed: forget the entry so that it is decoded again next time
+            synchronized (cache) {
+                cache.remove(card, entry);
+            }
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw e;
+        }
+    }
+
+    /**
+     * Decodes the image of an entry, unless another thread already claimed it.
+     */
+    private void decode(int card, Entry entry) {
+        if (!entry.claimed.compareAndSet(false, true)) return;
+        try {
+            entry.complete(loader.apply(card));
+        } catch (RuntimeException e) {
+            entry.completeExceptionally(e);
+        }
+    }
+
+    /**
+     * @return - the number of cached images.
+     */
+    public int size() {
+        synchronized (cache) {
+            return cache.size();
+        }
+    }
+
+    /**
+     * Stops the background decoding.
+     */
+    public void close() {
+        prefetcher.shutdownNow();
+    }
+}
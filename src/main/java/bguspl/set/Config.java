@@ -21,6 +21,18 @@ public class Config {
     public final long randomSpinMin;
     public final long randomSpinMax;
 
+    /**
+     * The size (in bytes) after which the log file is rotated (0 for no limit), and the number of log files to keep
+     */
+    public final long logFileLimitBytes;
+    public final int logFileCount;
+
+    /**
+     * The file of the binary event journal (empty for no journal), and the number of events it has room for
+     */
+    public final String journalFile;
+    public final long journalCapacity;
+
     /**
      * The number of features on the cards (e.g. shape, color etc.)
      */
@@ -36,6 +48,16 @@ public class Config {
      */
     public final int deckSize;
 
+    /**
+     * The number of cards above which Util::findSets searches with multiple threads (-1 to always search with one)
+     */
+    public final int parallelFindSetsThreshold;
+
+    /**
+     * The seed for shuffling the deck (0 for a different shuffle in every game)
+     */
+    public final long deckSeed;
+
     /**
      * The number of human players in the game.
      */
@@ -51,6 +73,30 @@ public class Config {
      */
     public final int players;
 
+    /**
+     * The kind of threads the players (and their AI) run on: "platform", "virtual" (Java 21+) or the class name of a
+     * java.util.concurrent.ThreadFactory
+     */
+    public final String threadModel;
+
+    /**
+     * How computer players choose their key presses: "random", "sets" (finds sets on the table) or the class name of a
+     * bguspl.set.ex.ComputerStrategy
+     */
+    public final String computerStrategy;
+
+    /**
+     * The chance that each claim of a "sets" computer player is a legal set on the table (otherwise it claims random
+     * cards that are not a set; when there is no set on the table it only makes these wrong claims)
+     */
+    public final double computerSuccessRate;
+
+    /**
+     * The shortest and the mean time (in milliseconds) a "sets" computer player takes before each claim
+     */
+    public final long computerReactionMinMillis;
+    public final long computerReactionMeanMillis;
+
     /**
      * Whether to print out hints to the console or not
      */
@@ -132,6 +178,11 @@ public class Config {
      */
     public final int fontSize;
 
+    /**
+     * The highest rate (in frames per second) at which the display is updated
+     */
+    public final int maxFramesPerSecond;
+
     /**
      * The scancodes of the keyboard input data for each player
      * Notes:
@@ -155,7 +206,7 @@ public class Config {
      * @param filename - the name of the configuration file.
      * @return - a properties object with the configuration file contents.
      */
-    private static Properties loadProperties(String filename, Logger logger) {
+    static Properties loadProperties(String filename, Logger logger) {
 
         Properties properties = new Properties();
 
@@ -183,9 +234,13 @@ public class Config {
     public Config(Logger logger, Properties properties) {
 
         // logger settings
-        Level logLevel = Level.parse(properties.getProperty("LogLevel", "ALL"));
+        Level logLevel = Level.parse(properties.getProperty("LogLevel", "INFO"));
         String logFormat = properties.getProperty("LogFormat", "[%1$tT.%1$tL] [%2$-7s] %3$s%n");
         Main.setLoggerLevelAndFormat(logger, logLevel, logFormat);
+        logFileLimitBytes = Long.parseLong(properties.getProperty("LogFileLimitBytes", "10000000"));
+        logFileCount = Integer.parseInt(properties.getProperty("LogFileCount", "3"));
+        journalFile = properties.getProperty("JournalFile", "").trim();
+        journalCapacity = Long.parseLong(properties.getProperty("JournalCapacity", "1000000"));
 
         // for debugging
         randomSpinMin = Long.parseLong(properties.getProperty("RandomSpinMin", "0"));
@@ -197,12 +252,19 @@ public class Config {
         featureSize = Integer.parseInt(properties.getProperty("FeatureSize", "3"));
         featureCount = Integer.parseInt(properties.getProperty("FeatureCount", "4"));
         deckSize = (int) Math.pow(featureSize, featureCount);
+        parallelFindSetsThreshold = Integer.parseInt(properties.getProperty("ParallelFindSetsThreshold", "256"));
+        deckSeed = Long.parseLong(properties.getProperty("DeckSeed", "0"));
 
         // gameplay settings
         humanPlayers = Integer.parseInt(properties.getProperty("HumanPlayers", "2"));
         computerPlayers = Integer.parseInt(properties.getProperty("ComputerPlayers", "0"));
         players = humanPlayers + computerPlayers;
 
+        threadModel = properties.getProperty("ThreadModel", "platform").trim();
+        computerStrategy = properties.getProperty("ComputerStrategy", "random").trim();
+        computerSuccessRate = Double.parseDouble(properties.getProperty("ComputerSuccessRate", "0.8"));
+        computerReactionMinMillis = (long) (Double.parseDouble(properties.getProperty("ComputerReactionMinSeconds", "0.3")) * 1000.0);
+        computerReactionMeanMillis = (long) (Double.parseDouble(properties.getProperty("ComputerReactionMeanSeconds", "1")) * 1000.0);
         hints = Boolean.parseBoolean(properties.getProperty("Hints", "False"));
         turnTimeoutMillis = (long) (Double.parseDouble(properties.getProperty("TurnTimeoutSeconds", "60")) * 1000.0);
         turnTimeoutWarningMillis = (long) (Double.parseDouble(properties.getProperty("TurnTimeoutWarningSeconds", "60")) * 1000.0);
@@ -214,7 +276,7 @@ public class Config {
         // ui settings
         String[] names = properties.getProperty("PlayerNames", "Player 1, Player 2").split(",");
         playerNames = new String[players];
-        Arrays.setAll(playerNames, i -> i < names.length ? names[i].trim() : "Player " + (i + 1));
+        Arrays.setAll(playerNames, i -> (i < names.length ? names[i].trim() : "Player " + (i + 1)).intern());
 
         rows = Integer.parseInt(properties.getProperty("Rows", "3"));
         columns = Integer.parseInt(properties.getProperty("Columns", "4"));
@@ -224,6 +286,7 @@ public class Config {
         playerCellWidth = Integer.parseInt(properties.getProperty("PlayerCellWidth", "300"));
         playerCellHeight = Integer.parseInt(properties.getProperty("PlayerCellHeight", "40"));
         fontSize = Integer.parseInt(properties.getProperty("FontSize", "40"));
+        maxFramesPerSecond = Math.max(1, Integer.parseInt(properties.getProperty("MaxFramesPerSecond", "60")));
 
         // keyboard input data
         playerKeys = new int[players][rows * columns];
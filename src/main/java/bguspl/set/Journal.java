@@ -0,0 +1,194 @@
+package bguspl.set;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An append-only binary journal of the game events, for offline analysis (see JournalReader).
+ * The journal is a memory-mapped file of fixed-size records, so that recording an event is a few plain stores into
+ * memory: a thread claims the next record with an atomic increment, fills it in and publishes it by writing its event
+ * type last. The operating system writes the pages to the file in the background.
+ * The file has room for a fixed number of records, events that do not fit are counted but not recorded.
+ *
+ * File layout (little endian): a header of HEADER_SIZE bytes (MAGIC, VERSION, RECORD_SIZE, the number of records),
+ * then records of RECORD_SIZE bytes: the event time (System.nanoTime), the event type (see Event), the player
+ * (-1 if none) and three event arguments.
+ */
+public class Journal implements Closeable {
+
+    /**
+     * The journaled events and the meaning of their arguments.
+     */
+    public enum Event {
+        /** A card was placed on the table: args (slot, card). */
+        CARD_PLACED,
+        /** A card was removed from the table: args (slot, card). */
+        CARD_REMOVED,
+        /** A player placed a token: args (slot). */
+        TOKEN_PLACED,
+        /** A player removed a token (or it was removed by the dealer): args (slot). */
+        TOKEN_REMOVED,
+        /** The tokens of all players were removed from a slot: args (slot, tokens removed), slot -1 for all slots. */
+        TOKENS_CLEARED,
+        /** A player claimed a set: args (the three cards). */
+        CLAIM,
+        /** The dealer's verdict on a claim: args (VERDICT_LEGAL / VERDICT_ILLEGAL / VERDICT_DISCARDED). */
+        VERDICT,
+        /** The dealer reset the turn timer: args (the turn timeout in milliseconds). */
+        TIMER_RESET;
+
+        private static final Event[] VALUES = values();
+
+        /**
+         * @return - the code of the event in the file (0 marks an unwritten record).
+         */
+        int code() {
+            return ordinal() + 1;
+        }
+
+        static Event of(int code) {
+            return code >= 1 && code <= VALUES.length ? VALUES[code - 1] : null;
+        }
+    }
+
+    public static final int VERDICT_ILLEGAL = 0;
+    public static final int VERDICT_LEGAL = 1;
+    public static final int VERDICT_DISCARDED = -1;
+
+    static final long MAGIC = 0x4C4E524A54455342L; // "BSETJRNL"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 32;
+    static final int RECORD_SIZE = 32;
+
+    /**
+     * Offsets of the header fields and of the record fields (in a record).
+     */
+    static final int HEADER_MAGIC = 0, HEADER_VERSION = 8, HEADER_RECORD_SIZE = 12, HEADER_COUNT = 16;
+    static final int RECORD_TIME = 0, RECORD_TYPE = 8, RECORD_PLAYER = 12, RECORD_ARGS = 16;
+
+    /**
+     * A journal that records nothing.
+     */
+    public static final Journal DISABLED = new Journal();
+
+    private static final VarHandle INT = MethodHandles.byteBufferViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN);
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final long capacity;
+    private final AtomicLong next = new AtomicLong();
+
+    private Journal() {
+        channel = null;
+        buffer = null;
+        capacity = 0;
+    }
+
+    private Journal(FileChannel channel, long capacity) throws IOException {
+        this.channel = channel;
+        this.capacity = capacity;
+        this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE + capacity * RECORD_SIZE);
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        buffer.putLong(HEADER_MAGIC, MAGIC);
+        buffer.putInt(HEADER_VERSION, VERSION);
+        buffer.putInt(HEADER_RECORD_SIZE, RECORD_SIZE);
+        buffer.putLong(HEADER_COUNT, 0);
+    }
+
+    /**
+     * Creates a journal file (replacing an existing one).
+     *
+     * @param path     - the path of the file.
+     * @param capacity - the number of records the file has room for.
+     * @return - the journal.
+     * @throws IOException if the file cannot be created or mapped.
+     */
+    public static Journal create(Path path, long capacity) throws IOException {
+        if (HEADER_SIZE + capacity * RECORD_SIZE > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("journal capacity is too large: " + capacity);
+        FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        return new Journal(channel, capacity);
+    }
+
+    /**
+     * Records an event.
+     *
+     * @param event  - the event.
+     * @param player - the player of the event (-1 if none).
+     * @param arg0   - the first argument of the event.
+     * @param arg1   - the second argument of the event.
+     * @param arg2   - the third argument of the event.
+     */
+    public void record(Event event, int player, int arg0, int arg1, int arg2) {
+        if (buffer == null) return;
+        long index = next.getAndIncrement();
+        if (index >= capacity) return;
+        int offset = (int) (HEADER_SIZE + index * RECORD_SIZE);
+        buffer.putLong(offset + RECORD_TIME, System.nanoTime());
+        buffer.putInt(offset + RECORD_PLAYER, player);
+        buffer.putInt(offset + RECORD_ARGS, arg0);
+        buffer.putInt(offset + RECORD_ARGS + 4, arg1);
+        buffer.putInt(offset + RECORD_ARGS + 8, arg2);
+        // the type is written last: a record with a type is complete
+        INT.setRelease(buffer, offset + RECORD_TYPE, event.code());
+    }
+
+    public void cardPlaced(int slot, int card) {
+        record(Event.CARD_PLACED, -1, slot, card, 0);
+    }
+
+    public void cardRemoved(int slot, int card) {
+        record(Event.CARD_REMOVED, -1, slot, card, 0);
+    }
+
+    public void tokenPlaced(int player, int slot) {
+        record(Event.TOKEN_PLACED, player, slot, 0, 0);
+    }
+
+    public void tokenRemoved(int player, int slot) {
+        record(Event.TOKEN_REMOVED, player, slot, 0, 0);
+    }
+
+    public void tokensCleared(int slot, int tokens) {
+        record(Event.TOKENS_CLEARED, -1, slot, tokens, 0);
+    }
+
+    public void claim(int player, int[] cards) {
+        record(Event.CLAIM, player, cards[0], cards.length > 1 ? cards[1] : -1, cards.length > 2 ? cards[2] : -1);
+    }
+
+    public void verdict(int player, int verdict) {
+        record(Event.VERDICT, player, verdict, 0, 0);
+    }
+
+    public void timerReset(long timeoutMillis) {
+        record(Event.TIMER_RESET, -1, (int) Math.min(timeoutMillis, Integer.MAX_VALUE), 0, 0);
+    }
+
+    /**
+     * @return - the number of events that did not fit in the journal.
+     */
+    public long lost() {
+        return Math.max(next.get() - capacity, 0);
+    }
+
+    /**
+     * Writes the number of records to the header and closes the file.
+     */
+    @Override
+    public void close() throws IOException {
+        if (channel == null) return;
+        buffer.putLong(HEADER_COUNT, Math.min(next.get(), capacity));
+        buffer.force();
+        channel.close();
+    }
+}
@@ -0,0 +1,132 @@
+package bguspl.set;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import static bguspl.set.Journal.*;
+
+/**
+ * Reads a journal file written by Journal.
+ * The file is mapped read-only, so reading an entry does not copy the rest of the file. A journal that was not closed
+ * (e.g. the game crashed) is read up to its first unwritten record.
+ */
+public class JournalReader implements Iterable<JournalReader.Entry>, Closeable {
+
+    /**
+     * A journaled event.
+     */
+    public static class Entry {
+
+        /**
+         * The time of the event (System.nanoTime of the game process).
+         */
+        public final long nanos;
+        public final Journal.Event event;
+
+        /**
+         * The player of the event (-1 if none).
+         */
+        public final int player;
+
+        /**
+         * The arguments of the event (see Journal.Event).
+         */
+        public final int arg0, arg1, arg2;
+
+        Entry(long nanos, Journal.Event event, int player, int arg0, int arg1, int arg2) {
+            this.nanos = nanos;
+            this.event = event;
+            this.player = player;
+            this.arg0 = arg0;
+            this.arg1 = arg1;
+            this.arg2 = arg2;
+        }
+
+        @Override
+        public String toString() {
+            return nanos + " " + event + " player " + player + " " + arg0 + " " + arg1 + " " + arg2;
+        }
+    }
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final int size;
+
+    /**
+     * The class constructor.
+     *
+     * @param path - the path of the journal file.
+     * @throws IOException if the file cannot be read or is not a journal.
+     */
+    public JournalReader(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        buffer.order(ByteOrder.LITTLE_ENDIAN);
+        if (buffer.capacity() < HEADER_SIZE || buffer.getLong(HEADER_MAGIC) != MAGIC
+                || buffer.getInt(HEADER_VERSION) != VERSION || buffer.getInt(HEADER_RECORD_SIZE) != RECORD_SIZE) {
+            channel.close();
+            throw new IOException(path + " is not a journal file (or has an unsupported version)");
+        }
+
+        long records = (buffer.capacity() - HEADER_SIZE) / RECORD_SIZE;
+        long count = buffer.getLong(HEADER_COUNT);
+        if (count == 0) {
+            // not closed: the records end at the first one without an event type
+            while (count < records && buffer.getInt((int) (HEADER_SIZE + count * RECORD_SIZE + RECORD_TYPE)) != 0)
+                count++;
+        }
+        size = (int) Math.min(count, records);
+    }
+
+    /**
+     * @return - the number of entries in the journal.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @param i - the index of the entry (0 <= i < size()).
+     * @return - the entry.
+     */
+    public Entry get(int i) {
+        if (i < 0 || i >= size) throw new IndexOutOfBoundsException(i);
+        int offset = HEADER_SIZE + i * RECORD_SIZE;
+        return new Entry(buffer.getLong(offset + RECORD_TIME),
+                Journal.Event.of(buffer.getInt(offset + RECORD_TYPE)),
+                buffer.getInt(offset + RECORD_PLAYER),
+                buffer.getInt(offset + RECORD_ARGS),
+                buffer.getInt(offset + RECORD_ARGS + 4),
+                buffer.getInt(offset + RECORD_ARGS + 8));
+    }
+
+    @Override
+    public Iterator<Entry> iterator() {
+        return new Iterator<>() {
+            private int next;
+
+            @Override
+            public boolean hasNext() {
+                return next < size;
+            }
+
+            @Override
+            public Entry next() {
+                if (next >= size) throw new NoSuchElementException();
+                return get(next++);
+            }
+        };
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -1,16 +1,22 @@
 package bguspl.set;
 
 import bguspl.set.ex.Dealer;
+import bguspl.set.ex.GameMetrics;
 import bguspl.set.ex.Player;
 import bguspl.set.ex.Table;
 
 import java.io.File;
 import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
 import java.text.SimpleDateFormat;
 import java.util.Arrays;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.logging.*;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
 
 /**
  * This class contains the game's main function.
@@ -23,6 +29,11 @@ public class Main {
     private static boolean xButtonPressed = false;
     private static Logger logger;
 
+    /**
+     * The number of log records that can wait for the log writer thread.
+     */
+    private static final int LOG_BUFFER_RECORDS = 8192;
+
     public static void xButtonPressed() {
         if (logger != null) logger.severe("exit button pressed");
         xButtonPressed = true;
@@ -44,6 +55,8 @@ public class Main {
         logger = initLogger();
         ThreadLogger.logStart(logger, Thread.currentThread().getName());
         Config config = new Config(logger, "config.properties");
+        for (Handler h : logger.getHandlers())
+            if (h instanceof AsyncLogHandler) ((AsyncLogHandler) h).setRotation(config.logFileLimitBytes, config.logFileCount);
         Util util = new UtilImpl(config);
 
         Player[] players = new Player[config.players];
@@ -58,7 +71,16 @@ public class Main {
         }
         ui = new UserInterfaceDecorator(logger, util, ui);
 
-        Env env = new Env(logger, config, ui, util);
+        Journal journal = Journal.DISABLED;
+        if (!config.journalFile.isEmpty()) {
+            try {
+                journal = Journal.create(Path.of(config.journalFile), config.journalCapacity);
+            } catch (IOException | IllegalArgumentException e) {
+                logger.severe("warning: cannot create journal file " + config.journalFile + " (" + e + "). Running without a journal.");
+            }
+        }
+
+        Env env = new Env(logger, config, ui, util, journal);
 
         // create the game entities
         Table table = new Table(env);
@@ -66,6 +88,9 @@ public class Main {
         for (int i = 0; i < players.length; i++)
             players[i] = new Player(env, dealer, table, i, i < env.config.humanPlayers);
 
+        // expose the live metrics of the engine over JMX (e.g. with jconsole)
+        ObjectName metricsName = registerMetrics(dealer.getMetrics());
+
         // start the dealer f
         ThreadLogger dealerThread = new ThreadLogger(dealer, "dealer", logger);
         dealerThread.startWithLog();
@@ -79,20 +104,50 @@ public class Main {
         } finally {
             logger.severe("thanks for playing... it was fun!");
             System.out.println("Thanks for playing... it was fun!");
+            try {
+                env.journal.close();
+            } catch (IOException e) {
+                logger.severe("error closing the journal: " + e);
+            }
+            unregisterMetrics(metricsName);
             ThreadLogger.logStop(logger, Thread.currentThread().getName());
             for (Handler h : logger.getHandlers()) h.close();
         }
     }
 
+    /**
+     * @return - the name the metrics are registered under, or null if they could not be registered.
+     */
+    private static ObjectName registerMetrics(GameMetrics metrics) {
+        try {
+            ObjectName name = new ObjectName(GameMetrics.OBJECT_NAME);
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            if (server.isRegistered(name)) server.unregisterMBean(name);
+            server.registerMBean(metrics, name);
+            return name;
+        } catch (JMException e) {
+            logger.severe("warning: cannot register the game metrics MBean (" + e + ")");
+            return null;
+        }
+    }
+
+    private static void unregisterMetrics(ObjectName name) {
+        if (name == null) return;
+        try {
+            ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+        } catch (JMException ignored) {}
+    }
+
     private static Logger initLogger() {
 
         //just to make our log file nicer :)
         SimpleDateFormat format = new SimpleDateFormat("M-d_HH-mm-ss");
-        FileHandler handler;
+        Handler handler;
         try {
             //noinspection ResultOfMethodCallIgnored
             new File("./logs/").mkdirs();
-            handler = new FileHandler("./logs/" + format.format(Calendar.getInstance().getTime()) + ".log");
+            // the game threads only queue their records, a background thread writes them (rotation is set by the config)
+            handler = new AsyncLogHandler("./logs/" + format.format(Calendar.getInstance().getTime()) + ".log", LOG_BUFFER_RECORDS, 0, 1);
         } catch (IOException e) {
             throw new RuntimeException(e);
         }
@@ -109,8 +164,9 @@ public class Main {
         Handler[] handlers = logger.getHandlers();
         if (handlers != null) Arrays.stream(handlers).forEach(h -> h.setFormatter(new SimpleFormatter() {
             // default format (with timestamp)  = "[%1$tF %1$tT] [%2$-7s] %3$s%n";
+            // not synchronized: with the asynchronous handler only the log writer thread formats records
             @Override
-            public synchronized String format(LogRecord lr) {
+            public String format(LogRecord lr) {
                 return String.format(format, new Date(lr.getMillis()),
                         lr.getLevel().getLocalizedName(), lr.getMessage()
                 );
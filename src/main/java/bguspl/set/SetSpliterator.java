@@ -0,0 +1,181 @@
+package bguspl.set;
+
+import java.util.Arrays;
+import java.util.Spliterator;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * A spliterator over the legal sets in an array of cards.
+ * The search space is split by the index of the first card of a set, so that each part can be searched by a different
+ * thread. The sets are reported in lexicographic order of their card indices (each set sorted by card id).
+ * If a cancellation flag is given, the search stops as soon as the flag is raised.
+ */
+class SetSpliterator implements Spliterator<int[]> {
+
+    private final Util util;
+    private final int[] cards;
+    private final int setSize;
+    private final AtomicBoolean cancelled;
+
+    /**
+     * The index of each card in the cards array (-1 if not in it), or null if the third card of a set cannot be
+     * computed from the first two (see Util.completeSet).
+     */
+    private final int[] position;
+
+    /**
+     * The indices of the cards of the next candidate set (in pairs mode, only the first two are used).
+     */
+    private final int[] combination;
+
+    /**
+     * A reusable buffer with the cards of the candidate set (for Util.testSet).
+     */
+    private final int[] candidate;
+
+    /**
+     * The first index of a set that this spliterator does not cover.
+     */
+    private int fence;
+
+    /**
+     * The class constructor.
+     *
+     * @param util      - the util object for testing/completing sets.
+     * @param cards     - the cards to search (without duplicates).
+     * @param config    - the game configuration (for the set size and the deck size).
+     * @param cancelled - a flag that stops the search when raised (may be null).
+     */
+    SetSpliterator(Util util, int[] cards, Config config, AtomicBoolean cancelled) {
+        this(util, cards, config.featureSize, pairPositions(util, cards, config.deckSize), cancelled, 0, cards.length);
+    }
+
+    private SetSpliterator(Util util, int[] cards, int setSize, int[] position, AtomicBoolean cancelled, int origin, int fence) {
+        this.util = util;
+        this.cards = cards;
+        this.setSize = setSize;
+        this.position = position;
+        this.cancelled = cancelled;
+        this.fence = fence;
+        this.candidate = new int[setSize];
+        this.combination = new int[setSize];
+        for (int i = 0; i < setSize; ++i)
+            combination[i] = origin + i;
+    }
+
+    private static int[] pairPositions(Util util, int[] cards, int deckSize) {
+        if (deckSize == 0 || util.completeSet(0, 0) == -1) return null;
+        int[] position = new int[deckSize];
+        Arrays.fill(position, -1);
+        for (int i = 0; i < cards.length; ++i)
+            position[cards[i]] = i;
+        return position;
+    }
+
+    private boolean exhausted() {
+        int last = position != null ? 1 : setSize - 1; // in pairs mode only the first two indices are used
+        return combination[0] >= fence || combination[last] >= cards.length
+                || (cancelled != null && cancelled.get());
+    }
+
+    private int[] report(int[] set) {
+        int[] result = Arrays.copyOf(set, set.length);
+        Arrays.sort(result);
+        return result;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super int[]> action) {
+        return position != null ? advancePairs(action) : advanceCombinations(action);
+    }
+
+    /**
+     * Completes each pair (i, j) of cards and reports the set if the third card comes after j.
+     */
+    private boolean advancePairs(Consumer<? super int[]> action) {
+        int n = cards.length;
+        while (!exhausted()) {
+            int i = combination[0], j = combination[1];
+            int k = position[util.completeSet(cards[i], cards[j])];
+
+            // next pair
+            if (j + 1 < n) {
+                combination[1] = j + 1;
+            } else {
+                combination[0] = i + 1;
+                combination[1] = i + 2;
+            }
+
+            if (k > j) {
+                candidate[0] = cards[i];
+                candidate[1] = cards[j];
+                candidate[2] = cards[k];
+                action.accept(report(candidate));
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Tests every combination of setSize cards in lexicographic order.
+     */
+    private boolean advanceCombinations(Consumer<? super int[]> action) {
+        int n = cards.length, r = setSize;
+        while (!exhausted()) {
+            for (int i = 0; i < r; ++i)
+                candidate[i] = cards[combination[i]];
+            boolean isSet = util.testSet(candidate);
+
+            // generate next combination in lexicographic order
+            int t = r - 1;
+            while (t != 0 && combination[t] == n - r + t) --t;
+            combination[t]++;
+            for (int i = t + 1; i < r; i++) combination[i] = combination[i - 1] + 1;
+
+            if (isSet) {
+                action.accept(report(candidate));
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * The relative amount of work left from a first index to the end of the cards (i.e. ~ the number of
+     * combinations starting at or after it).
+     */
+    private double work(int first) {
+        return Math.pow(cards.length - first, setSize);
+    }
+
+    @Override
+    public Spliterator<int[]> trySplit() {
+        // only untouched first indices can be handed over: (current first index, fence)
+        int origin = combination[0] + 1;
+        if (exhausted() || fence - origin < 2) return null;
+
+        // split where about half of the remaining combinations are on each side
+        double half = (work(origin) + work(fence)) / 2;
+        int mid = cards.length - (int) Math.round(Math.pow(half, 1.0 / setSize));
+        mid = Math.max(origin + 1, Math.min(mid, fence - 1));
+
+        SetSpliterator suffix = new SetSpliterator(util, cards, setSize, position, cancelled, mid, fence);
+        fence = mid;
+        return suffix;
+    }
+
+    @Override
+    public long estimateSize() {
+        if (exhausted()) return 0;
+        // the number of candidate combinations (a set is much rarer, but this keeps the splits proportional)
+        long size = (long) ((work(combination[0]) - work(fence)) / setSize);
+        return Math.max(size, 1);
+    }
+
+    @Override
+    public int characteristics() {
+        return ORDERED | DISTINCT | NONNULL;
+    }
+}
@@ -0,0 +1,155 @@
+package bguspl.set;
+
+import bguspl.set.ex.Dealer;
+import bguspl.set.ex.LatencyHistogram;
+import bguspl.set.ex.Player;
+import bguspl.set.ex.Table;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.logging.Logger;
+
+/**
+ * Runs complete games with computer players only and no user interface, and reports the engine's throughput.
+ * Usage: Simulator [--real-time] [games (default 10)] [concurrent games (default 1)] [config file (default config.properties)]
+ * Note: by default the players find sets and the game is not paced (see ENGINE_SETTINGS), so that the engine alone is
+ * measured. The --real-time flag (or SimulatorRealTime=True in the config file) keeps the config file's settings.
+ */
+public class Simulator {
+
+    /**
+     * The settings that override the config file unless real-time pacing is requested: the computer players claim
+     * sets without reaction time, nobody is frozen, the table has no delays, and a turn times out quickly.
+     */
+    private static final Map<String, String> ENGINE_SETTINGS = new LinkedHashMap<>();
+
+    static {
+        ENGINE_SETTINGS.put("ComputerStrategy", "sets");
+        ENGINE_SETTINGS.put("ComputerReactionMinSeconds", "0");
+        ENGINE_SETTINGS.put("ComputerReactionMeanSeconds", "0");
+        ENGINE_SETTINGS.put("PointFreezeSeconds", "0");
+        ENGINE_SETTINGS.put("PenaltyFreezeSeconds", "0");
+        ENGINE_SETTINGS.put("TableDelaySeconds", "0");
+        ENGINE_SETTINGS.put("TurnTimeoutWarningSeconds", "0");
+        ENGINE_SETTINGS.put("TurnTimeoutSeconds", "1");
+    }
+
+    /**
+     * The results of a single game.
+     */
+    private static class GameResult {
+        private final long claims;
+        private final long validClaims;
+        private final LatencyHistogram verdictLatency;
+
+        private GameResult(Dealer dealer) {
+            this.verdictLatency = dealer.getVerdictLatency();
+            this.validClaims = dealer.getValidClaims();
+            this.claims = verdictLatency.count() + dealer.getDiscardedClaims();
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException, ExecutionException {
+        boolean realTime = Arrays.asList(args).contains("--real-time");
+        args = Arrays.stream(args).filter(arg -> !arg.equals("--real-time")).toArray(String[]::new);
+        int games = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        int concurrentGames = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+        String configFilename = args.length > 2 ? args[2] : "config.properties";
+
+        Logger logger = Logger.getLogger("SetGameSimulator");
+        logger.setUseParentHandlers(false);
+        Properties properties = Config.loadProperties(configFilename, logger);
+        realTime |= Boolean.parseBoolean(properties.getProperty("SimulatorRealTime", "False"));
+        if (!realTime)
+            ENGINE_SETTINGS.forEach(properties::setProperty);
+        int computerPlayers = Integer.parseInt(properties.getProperty("ComputerPlayers", "0"));
+        int humanPlayers = Integer.parseInt(properties.getProperty("HumanPlayers", "0"));
+        properties.setProperty("HumanPlayers", "0");
+        properties.setProperty("ComputerPlayers", Integer.toString(Math.max(1, computerPlayers + humanPlayers)));
+        properties.setProperty("Hints", "False");
+        properties.setProperty("EndGamePauseSeconds", "0");
+        Config config = new Config(logger, properties);
+        Util util = new UtilImpl(config);
+        Env env = new Env(logger, config, new UserInterfaceHeadless(), util);
+
+        System.out.printf("Simulating %d games (%d at a time) with %d computer players...%n", games, concurrentGames, config.players);
+        System.out.printf("Settings (%s): %s%n", realTime ? "real-time, from " + configFilename : "engine only, --real-time to pace",
+                effectiveSettings(config));
+        ExecutorService executor = Executors.newFixedThreadPool(concurrentGames);
+        List<Future<GameResult>> results = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int i = 0; i < games; i++) {
+            int game = i;
+            results.add(executor.submit(() -> runGame(env, game)));
+        }
+
+        long claims = 0, validClaims = 0;
+        LatencyHistogram verdictLatency = new LatencyHistogram();
+        for (Future<GameResult> result : results) {
+            GameResult game;
+            try {
+                game = result.get();
+            } catch (ExecutionException e) {
+                // a dealer failed: the results would be meaningless
+                executor.shutdownNow();
+                System.err.println("Simulation failed: a game ended with an exception");
+                e.getCause().printStackTrace();
+                System.exit(1);
+                return;
+            }
+            claims += game.claims;
+            validClaims += game.validClaims;
+            verdictLatency.add(game.verdictLatency);
+        }
+        double seconds = (System.nanoTime() - start) / 1e9;
+        executor.shutdown();
+
+        System.out.printf("Games: %d in %.2f s (%.2f games/sec)%n", games, seconds, games / seconds);
+        System.out.printf("Claims: %d (%d legal sets), %.1f claims/sec%n", claims, validClaims, claims / seconds);
+        System.out.printf("Verdict latency (us): mean %.1f, p50 %.1f, p90 %.1f, p99 %.1f, p99.9 %.1f, max %.1f%n",
+                verdictLatency.mean() / 1e3, verdictLatency.percentile(50) / 1e3, verdictLatency.percentile(90) / 1e3,
+                verdictLatency.percentile(99) / 1e3, verdictLatency.percentile(99.9) / 1e3, verdictLatency.max() / 1e3);
+    }
+
+    /**
+     * @return - the settings that pace the game, as the game sees them.
+     */
+    private static String effectiveSettings(Config config) {
+        return String.format("ComputerStrategy=%s, ComputerReaction=%d ms (mean %d ms), TurnTimeout=%d ms (warning %d ms), " +
+                        "PointFreeze=%d ms, PenaltyFreeze=%d ms, TableDelay=%d ms",
+                config.computerStrategy, config.computerReactionMinMillis, config.computerReactionMeanMillis,
+                config.turnTimeoutMillis, config.turnTimeoutWarningMillis, config.pointFreezeMillis,
+                config.penaltyFreezeMillis, config.tableDelayMillis);
+    }
+
+    /**
+     * Runs a game on the calling thread, so that an exception that ends the dealer fails the game's future.
+     */
+    private static GameResult runGame(Env env, int game) {
+        Player[] players = new Player[env.config.players];
+        Table table = new Table(env);
+        Dealer dealer = new Dealer(env, table, players);
+        for (int i = 0; i < players.length; i++)
+            players[i] = new Player(env, dealer, table, i, false);
+
+        Thread thread = Thread.currentThread();
+        String poolName = thread.getName();
+        thread.setName("dealer-" + game);
+        ThreadLogger.logStart(env.logger, thread.getName());
+        try {
+            dealer.run();
+        } finally {
+            ThreadLogger.logStop(env.logger, thread.getName());
+            thread.setName(poolName);
+        }
+        return new GameResult(dealer);
+    }
+}
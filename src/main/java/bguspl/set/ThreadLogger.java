@@ -1,11 +1,20 @@
 package bguspl.set;
 
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadFactory;
 import java.util.logging.Logger;
 
 public class ThreadLogger extends Thread {
 
     final Logger logger;
 
+    /**
+     * The thread factories of the thread models that were used so far (see Config::threadModel).
+     */
+    private static final Map<String, ThreadFactory> factories = new ConcurrentHashMap<>();
+
     public ThreadLogger(Runnable target, String name, Logger logger) {
         super(target, name);
         this.logger = logger;
@@ -28,4 +37,47 @@ public class ThreadLogger extends Thread {
     public static void logStop(Logger logger, String name) {
         logger.info("thread " + name + " terminated.");
     }
+
+    /**
+     * Creates an (unstarted) thread of the configured thread model that logs its own start and termination.
+     *
+     * @param env    - the game environment objects.
+     * @param target - the code the thread runs.
+     * @param name   - the name of the thread.
+     * @return - the new thread.
+     */
+    public static Thread newThread(Env env, Runnable target, String name) {
+        ThreadFactory factory = factories.computeIfAbsent(env.config.threadModel, model -> createFactory(model, env.logger));
+        Thread thread = factory.newThread(() -> {
+            logStart(env.logger, name);
+            try {
+                target.run();
+            } finally {
+                logStop(env.logger, name);
+            }
+        });
+        thread.setName(name);
+        return thread;
+    }
+
+    /**
+     * @param model  - "platform", "virtual" or the class name of a ThreadFactory implementation.
+     * @param logger - for reporting a thread model that cannot be used.
+     * @return - the thread factory of the model (platform threads if the model cannot be used).
+     */
+    private static ThreadFactory createFactory(String model, Logger logger) {
+        if (model.equalsIgnoreCase("platform")) return Thread::new;
+        try {
+            if (model.equalsIgnoreCase("virtual")) {
+                // virtual threads need Java 21 (looked up reflectively so that the game still builds for Java 17)
+                Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+                Method factory = Class.forName("java.lang.Thread$Builder").getMethod("factory");
+                return (ThreadFactory) factory.invoke(builder);
+            }
+            return (ThreadFactory) Class.forName(model).getConstructor().newInstance();
+        } catch (ReflectiveOperationException | ClassCastException | UnsupportedOperationException e) {
+            logger.severe("warning: cannot use thread model " + model + " (" + e + "). Using platform threads.");
+            return Thread::new;
+        }
+    }
 }
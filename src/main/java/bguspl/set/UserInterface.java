@@ -18,6 +18,28 @@ public interface UserInterface {
      */
     void removeCard(int slot);
 
+    /**
+     * Draw the card images corresponding to the card ids in the specified slots, as a single update.
+     * @param cards - the card ids.
+     * @param slots - the slot numbers (cards[i] is placed in slots[i]).
+     * @param count - the number of cards in the arrays to use.
+     */
+    void placeCards(int[] cards, int[] slots, int count);
+
+    /**
+     * Draw an empty card image in the specified slots, as a single update.
+     * @param slots - the slot numbers.
+     * @param count - the number of slots in the array to use.
+     */
+    void removeCards(int[] slots, int count);
+
+    /**
+     * A hint about the cards that will be placed next, so that their images can be prepared ahead of time.
+     * @param cards - the card ids (in the order they will be drawn).
+     * @param count - the number of cards in the array to use.
+     */
+    void upcomingCards(int[] cards, int count);
+
     /**
      * Draw a player name text in the specified slot.
      * @param player - the card id.
@@ -4,10 +4,15 @@ import bguspl.set.ex.Player;
 
 import javax.swing.*;
 import java.awt.*;
+import java.awt.image.BufferedImage;
 import java.io.FileNotFoundException;
 import java.net.URL;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.logging.Logger;
 import java.util.stream.Collectors;
 
@@ -15,9 +20,163 @@ import static java.lang.String.format;
 
 /**
  * Java Swing implementation of the UserInterface interface.
+ * The game threads do not touch the Swing components: they only record the changes to display in lock-free pending
+ * state, and a Swing timer applies them on the event dispatch thread at most config.maxFramesPerSecond times a
+ * second. All the changes made between two frames are drawn with a single repaint.
  */
 public class UserInterfaceSwing extends JFrame implements UserInterface {
 
+    /**
+     * A set of indices (slots or players) waiting to be drawn, as an atomic bitmap.
+     */
+    private static class DirtySet {
+
+        private final AtomicLongArray words;
+        private final int size;
+
+        private DirtySet(int size) {
+            this.words = new AtomicLongArray((size + 63) / 64);
+            this.size = size;
+        }
+
+        private void add(int i) {
+            long bit = 1L << (i & 63);
+            if ((words.get(i >>> 6) & bit) == 0)
+                words.getAndAccumulate(i >>> 6, bit, (word, b) -> word | b);
+        }
+
+        private void addAll() {
+            for (int word = 0; word < words.length(); word++)
+                words.set(word, word < size / 64 ? -1L : (1L << (size % 64)) - 1);
+        }
+
+        private int words() {
+            return words.length();
+        }
+
+        /**
+         * @param word - the index of a word of the bitmap.
+         * @return - the indices in the word (index word * 64 + bit for each set bit), removing them from the set.
+         */
+        private long take(int word) {
+            return words.get(word) == 0 ? 0 : words.getAndSet(word, 0);
+        }
+    }
+
+    /**
+     * The token labels by the bitmask of the players on a slot (for up to 64 players), without boxing the bitmask.
+     * With few players every bitmask has its own entry in an array; otherwise a bounded open-addressing table keeps
+     * the labels (it is cleared when it fills up, the labels are rebuilt on demand).
+     */
+    private static class TokenLabels {
+
+        private static final int MAX_INDEXED_PLAYERS = 12;
+        private static final int HASHED_CAPACITY = 1 << 12;
+        private static final int MAX_HASHED_LABELS = HASHED_CAPACITY * 3 / 4;
+
+        /**
+         * The labels by bitmask (with at most MAX_INDEXED_PLAYERS players), or null.
+         */
+        private final String[] indexed;
+
+        /**
+         * The open-addressing table (0 marks a free key: a slot without tokens has no label), or null.
+         */
+        private final long[] keys;
+        private final String[] values;
+        private int size;
+
+        private TokenLabels(int players) {
+            if (players <= MAX_INDEXED_PLAYERS) {
+                indexed = new String[1 << players];
+                keys = null;
+                values = null;
+            } else {
+                indexed = null;
+                keys = new long[HASHED_CAPACITY];
+                values = new String[HASHED_CAPACITY];
+            }
+        }
+
+        private static int indexOf(long players) {
+            return (int) ((players * 0x9E3779B97F4A7C15L) >>> (Long.SIZE - Integer.numberOfTrailingZeros(HASHED_CAPACITY)));
+        }
+
+        /**
+         * @param players - a non-zero bitmask of players.
+         * @return - the cached label, or null.
+         */
+        private String get(long players) {
+            if (indexed != null) return indexed[(int) players];
+            for (int i = indexOf(players); keys[i] != 0; i = (i + 1) & (HASHED_CAPACITY - 1))
+                if (keys[i] == players) return values[i];
+            return null;
+        }
+
+        private void put(long players, String label) {
+            if (indexed != null) {
+                indexed[(int) players] = label;
+                return;
+            }
+            if (size >= MAX_HASHED_LABELS) {
+                Arrays.fill(keys, 0);
+                Arrays.fill(values, null);
+                size = 0;
+            }
+            int i = indexOf(players);
+            while (keys[i] != 0 && keys[i] != players)
+                i = (i + 1) & (HASHED_CAPACITY - 1);
+            if (keys[i] == 0) size++;
+            keys[i] = players;
+            values[i] = label;
+        }
+    }
+
+    /**
+     * A value of pendingTimer that means there is nothing new to display.
+     */
+    private static final long NO_TIMER_UPDATE = Long.MIN_VALUE;
+    private static final long TIMER_WARN = 1, TIMER_ELAPSED = 2;
+
+    /**
+     * The card to display in each slot (-1 for an empty slot), and the slots that changed since the last frame.
+     */
+    private final AtomicIntegerArray pendingCards;
+    private final DirtySet dirtyCards;
+
+    /**
+     * The players that have a token on each slot, tokenWords words per slot with a bit per player, and the slots that
+     * changed since the last frame.
+     */
+    private final AtomicLongArray tokens;
+    private final int tokenWords;
+    private final DirtySet dirtyTokens;
+
+    /**
+     * The timer to display: the milliseconds shifted left by 2, or'ed with TIMER_WARN and TIMER_ELAPSED.
+     */
+    private final AtomicLong pendingTimer = new AtomicLong(NO_TIMER_UPDATE);
+
+    /**
+     * The freeze time and score of each player, and the players that changed since the last frame.
+     */
+    private final AtomicLongArray pendingFreezes;
+    private final AtomicIntegerArray pendingScores;
+    private final DirtySet dirtyPlayers;
+
+    /**
+     * True iff something changed since the last frame.
+     */
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    private final Timer frameTimer;
+
+    /**
+     * The card images, decoded when the dealer announces the next cards or places them (enough are cached for the
+     * table and the next cards).
+     */
+    private final CardImages cardImages;
+
     private final TimerPanel timerPanel;
     private final GamePanel gamePanel;
     private final PlayersPanel playersPanel;
@@ -31,6 +190,22 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
     public UserInterfaceSwing(Logger logger, Config config, Player[] players) {
 
         this.config = config;
+        pendingCards = new AtomicIntegerArray(config.tableSize);
+        for (int slot = 0; slot < config.tableSize; slot++)
+            pendingCards.set(slot, -1);
+        dirtyCards = new DirtySet(config.tableSize);
+        tokenWords = (config.players + 63) / 64;
+        tokens = new AtomicLongArray(config.tableSize * tokenWords);
+        dirtyTokens = new DirtySet(config.tableSize);
+        pendingFreezes = new AtomicLongArray(config.players);
+        pendingScores = new AtomicIntegerArray(config.players);
+        dirtyPlayers = new DirtySet(config.players);
+
+        // init deck and load the pictures from png files when needed
+        assert config.featureSize < 10; // otherwise there will be naming conflicts
+        cardImages = new CardImages(card -> loadImageResource("cards/" + intInBaseToPaddedString(card, config.featureCount, config.featureSize) + ".png"),
+                2 * config.tableSize);
+
         timerPanel = new TimerPanel();
         gamePanel = new GamePanel();
         playersPanel = new PlayersPanel();
@@ -66,13 +241,67 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
         addKeyListener(new InputManager(logger, config, players));
         addWindowListener(new WindowManager());
 
-        EventQueue.invokeLater(() -> setVisible(true));
+        frameTimer = new Timer(1000 / config.maxFramesPerSecond, e -> frame());
+        EventQueue.invokeLater(() -> {
+            setVisible(true);
+            frameTimer.start();
+        });
+    }
+
+    /**
+     * Loads an image and scales it to the size of a cell, in a format that is fast to draw on the screen, so that
+     * painting a cell is a plain copy.
+     *
+     * @param filename - the name of the image resource.
+     * @return - the scaled image.
+     */
+    private Image loadImageResource(String filename) {
+        URL imageResource = getClass().getClassLoader().getResource(filename);
+        if (imageResource == null)
+            throw new RuntimeException(new FileNotFoundException(filename));
+        Image image = new ImageIcon(imageResource).getImage();
+
+        BufferedImage scaled = GraphicsEnvironment.isHeadless()
+                ? new BufferedImage(config.cellWidth, config.cellHeight, BufferedImage.TYPE_INT_ARGB)
+                : GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice().getDefaultConfiguration()
+                .createCompatibleImage(config.cellWidth, config.cellHeight, Transparency.TRANSLUCENT);
+        Graphics2D g = scaled.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g.drawImage(image, 0, 0, config.cellWidth, config.cellHeight, null);
+        g.dispose();
+        return scaled;
+    }
+
+    /**
+     * Applies the changes made since the last frame (runs on the event dispatch thread).
+     */
+    private void frame() {
+        if (!dirty.getAndSet(false)) return;
+        long timer = pendingTimer.getAndSet(NO_TIMER_UPDATE);
+        if (timer != NO_TIMER_UPDATE)
+            timerPanel.update(timer >> 2, (timer & TIMER_WARN) != 0, (timer & TIMER_ELAPSED) != 0);
+        gamePanel.update();
+        playersPanel.update();
+    }
+
+    /**
+     * Schedules the pending changes to be drawn in the next frame.
+     */
+    private void changed() {
+        if (!dirty.get())
+            dirty.set(true);
     }
 
     private class TimerPanel extends JPanel {
 
         private final JLabel timerField;
 
+        /**
+         * What the timer field shows (in the units it shows), so that it is only formatted again when it changes.
+         */
+        private long shownValue = Long.MIN_VALUE;
+        private int shownMode = -1;
+
         private String generateTime(long millies, boolean warn) {
             if (warn)
                 return format("Remaining Time: %.2f", (double) millies / 1000.0f);
@@ -90,47 +319,41 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
             add(timerField);
         }
 
-        private void setCountdown(long millies, boolean warn) {
-            timerField.setText(generateTime(millies, warn));
-            timerField.setForeground(warn ? Color.RED : Color.BLACK);
-        }
-
-        private void setElapsed(long millies) {
-            timerField.setText("Elapsed time: " + millies / 1000);
+        private void update(long millies, boolean warn, boolean elapsed) {
+            int mode = elapsed ? 2 : warn ? 1 : 0;
+            long value = warn ? millies / 10 : millies / 1000;
+            if (mode == shownMode && value == shownValue) return;
+            shownMode = mode;
+            shownValue = value;
+            if (elapsed) {
+                timerField.setText("Elapsed time: " + value);
+            } else {
+                timerField.setText(generateTime(millies, warn));
+                timerField.setForeground(warn ? Color.RED : Color.BLACK);
+            }
         }
     }
 
     private class GamePanel extends JLayeredPane {
 
         private final Image emptyCard;
-        private final Image[] deck;
         private final Image[][] grid;
-        private final boolean[][][] playerTokens;
         private final JLabel[][] tokenText;
 
-        private Image loadImageResource(String filename) {
-            URL imageResource = getClass().getClassLoader().getResource(filename);
-            if (imageResource == null)
-                throw new RuntimeException(new FileNotFoundException(filename));
-            return new ImageIcon(imageResource).getImage();
-        }
+        /**
+         * The token labels by the bitmask of the players that have a token on the slot, so that a label is built once
+         * and a token toggle only looks it up. Only used with at most 64 players (a single bitmask word per slot).
+         */
+        private final TokenLabels tokenLabels = new TokenLabels(config.players);
 
         private GamePanel() {
 
             setPreferredSize(new Dimension(config.columns * config.cellWidth, config.rows * config.cellHeight));
 
-            // init deck and load all pictures from png files
-            assert config.featureSize < 10; // otherwise there will be naming conflicts
-
-            // load the image resources
-            deck = new Image[config.deckSize];
-            for (int i = 0; i < config.deckSize; ++i)
-                deck[i] = loadImageResource("cards/" + intInBaseToPaddedString(i, config.featureCount, config.featureSize) + ".png");
             emptyCard = loadImageResource("cards/empty_card.png");
 
             grid = new Image[config.rows][config.columns];
             tokenText = new JLabel[config.rows][config.columns];
-            playerTokens = new boolean[config.players][config.rows][config.columns];
             for (int row = 0; row < config.rows; row++) {
                 for (int column = 0; column < config.columns; column++) {
                     // init the cards on the table grid as empty cards
@@ -148,67 +371,80 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
             }
         }
 
-        private void placeCard(int slot, int card) {
-            int row = slot / config.columns;
-            int column = slot % config.columns;
-            grid[row][column] = deck[card];
-            validate();
-            repaint();
-        }
-
-        private void removeCard(int slot) {
-            int row = slot / config.columns;
-            int column = slot % config.columns;
-            grid[row][column] = emptyCard;
-            validate();
-            repaint();
-        }
-
-        private void placeToken(int player, int slot) {
-            int row = slot / config.columns;
-            int column = slot % config.columns;
-            playerTokens[player][row][column] = true;
-            tokenText[row][column].setText(generatePlayersTokenText(row, column));
-        }
-
-        private void removeTokens() {
-            for (int i = 0; i < config.tableSize; i++)
-                removeTokens(i);
-        }
+        /**
+         * Draws the cards and tokens that changed since the last frame.
+         * Only the cells of the slots that changed are repainted.
+         */
+        private void update() {
+            for (int word = 0; word < dirtyCards.words(); word++) {
+                for (long bits = dirtyCards.take(word); bits != 0; bits &= bits - 1) {
+                    int slot = word * 64 + Long.numberOfTrailingZeros(bits);
+                    int row = slot / config.columns;
+                    int column = slot % config.columns;
+                    int card = pendingCards.get(slot);
+                    Image image = card < 0 ? emptyCard : cardImages.get(card);
+                    if (image == grid[row][column]) continue;
+                    grid[row][column] = image;
+                    repaint(column * config.cellWidth, row * config.cellHeight, config.cellWidth, config.cellHeight);
+                }
+            }
 
-        private void removeTokens(int slot) {
-            int row = slot / config.columns;
-            int column = slot % config.columns;
-            for (int player = 0; player < playerTokens.length; player++) {
-                playerTokens[player][row][column] = false;
-                tokenText[row][column].setText(generatePlayersTokenText(row, column));
+            for (int word = 0; word < dirtyTokens.words(); word++) {
+                for (long bits = dirtyTokens.take(word); bits != 0; bits &= bits - 1) {
+                    int slot = word * 64 + Long.numberOfTrailingZeros(bits);
+                    JLabel label = tokenText[slot / config.columns][slot % config.columns];
+                    String text = generatePlayersTokenText(slot);
+                    if (!text.equals(label.getText()))
+                        label.setText(text);
+                }
             }
         }
 
-        private void removeToken(int player, int slot) {
-            int row = slot / config.columns;
-            int column = slot % config.columns;
-            playerTokens[player][row][column] = false;
-            tokenText[row][column].setText(generatePlayersTokenText(row, column));
+        private String generatePlayersTokenText(int slot) {
+            if (tokenWords == 1) {
+                long players = tokens.get(slot);
+                if (players == 0) return "";
+                String text = tokenLabels.get(players);
+                if (text == null) {
+                    text = appendPlayerNames(new StringBuilder(), players, 0).toString();
+                    tokenLabels.put(players, text);
+                }
+                return text;
+            }
+            // more than 64 players: the bitmask spans several words, and the combinations are too many to cache, so
+            // the label is built from the bits (still O(players on the slot), with the interned names)
+            StringBuilder text = new StringBuilder();
+            for (int word = 0; word < tokenWords; word++)
+                appendPlayerNames(text, tokens.get(slot * tokenWords + word), word * 64);
+            return text.toString();
         }
 
-        private String generatePlayersTokenText(int row, int column) {
-            String text = "";
-            for (int player = 0; player < config.players; player++) {
-                if (playerTokens[player][row][column])
-                    text = text.concat(config.playerNames[player] + ", ");
+        /**
+         * @param text        - the label to append to.
+         * @param players     - a bitmask of players.
+         * @param firstPlayer - the player of the lowest bit.
+         * @return - text, with the names of the players appended (separated by commas).
+         */
+        private StringBuilder appendPlayerNames(StringBuilder text, long players, int firstPlayer) {
+            for (long bits = players; bits != 0; bits &= bits - 1) {
+                if (text.length() > 0) text.append(", ");
+                text.append(config.playerNames[firstPlayer + Long.numberOfTrailingZeros(bits)]);
             }
-            if (text.length() < 2)
-                return "";
-            return text.substring(0, text.length() - 2);
+            return text;
         }
 
         @Override
         public void paintComponent(Graphics g) {
-            // draw card images
-            for (int row = 0; row < config.rows; row++)
-                for (int column = 0; column < config.columns; column++)
-                    g.drawImage(grid[row][column], (column * config.cellWidth), (row * config.cellHeight), this);
+            // draw the card images of the cells in the repainted region
+            Rectangle clip = g.getClipBounds();
+            if (clip == null) clip = new Rectangle(getSize());
+            int firstRow = Math.max(clip.y / config.cellHeight, 0);
+            int lastRow = Math.min((clip.y + clip.height - 1) / config.cellHeight, config.rows - 1);
+            int firstColumn = Math.max(clip.x / config.cellWidth, 0);
+            int lastColumn = Math.min((clip.x + clip.width - 1) / config.cellWidth, config.columns - 1);
+            for (int row = firstRow; row <= lastRow; row++)
+                for (int column = firstColumn; column <= lastColumn; column++)
+                    g.drawImage(grid[row][column], (column * config.cellWidth), (row * config.cellHeight), null);
         }
     }
 
@@ -220,6 +456,7 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
             this.setLayout(new GridLayout(2, config.players));
             this.setPreferredSize(new Dimension(config.players * config.playerCellWidth, config.rows * config.playerCellHeight));
             this.playersTable = new JLabel[2][config.players];
+            this.shownFreezes = new long[config.players];
             for (int i = 0; i < config.players; i++) {
                 this.playersTable[0][i] = new JLabel(config.playerNames[i]);
                 this.playersTable[0][i].setFont(new Font("Serif", Font.BOLD, config.fontSize));
@@ -235,7 +472,25 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
             }
         }
 
+        /**
+         * The freeze seconds each player's name shows plus 1 (0 if not frozen).
+         */
+        private final long[] shownFreezes;
+
+        private void update() {
+            for (int word = 0; word < dirtyPlayers.words(); word++) {
+                for (long bits = dirtyPlayers.take(word); bits != 0; bits &= bits - 1) {
+                    int player = word * 64 + Long.numberOfTrailingZeros(bits);
+                    setFreeze(player, pendingFreezes.get(player));
+                    setScore(player, pendingScores.get(player));
+                }
+            }
+        }
+
         private void setFreeze(int player, long millies) {
+            long seconds = millies > 0 ? millies / 1000 + 1 : 0;
+            if (seconds == shownFreezes[player]) return;
+            shownFreezes[player] = seconds;
             if (millies > 0) {
                 this.playersTable[0][player].setText(config.playerNames[player] + " (" + millies / 1000 + ")");
                 this.playersTable[0][player].setForeground(Color.RED);
@@ -246,7 +501,9 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
         }
 
         private void setScore(int player, int score) {
-            playersTable[1][player].setText(Integer.toString(score));
+            String text = Integer.toString(score);
+            if (!text.equals(playersTable[1][player].getText()))
+                playersTable[1][player].setText(text);
         }
     }
 
@@ -276,63 +533,114 @@ public class UserInterfaceSwing extends JFrame implements UserInterface {
 
     @Override
     public void placeCard(int card, int slot) {
-        gamePanel.placeCard(slot, card);
+        cardImages.prefetch(card);
+        pendingCards.set(slot, card);
+        dirtyCards.add(slot);
+        changed();
     }
 
     @Override
     public void removeCard(int slot) {
-        gamePanel.removeCard(slot);
+        pendingCards.set(slot, -1);
+        dirtyCards.add(slot);
+        changed();
+    }
+
+    @Override
+    public void placeCards(int[] cards, int[] slots, int count) {
+        for (int i = 0; i < count; i++) {
+            cardImages.prefetch(cards[i]);
+            pendingCards.set(slots[i], cards[i]);
+            dirtyCards.add(slots[i]);
+        }
+        changed();
+    }
+
+    @Override
+    public void removeCards(int[] slots, int count) {
+        for (int i = 0; i < count; i++) {
+            pendingCards.set(slots[i], -1);
+            dirtyCards.add(slots[i]);
+        }
+        changed();
+    }
+
+    @Override
+    public void upcomingCards(int[] cards, int count) {
+        for (int i = 0; i < count; i++)
+            cardImages.prefetch(cards[i]);
     }
 
     @Override
     public void placeToken(int player, int slot) {
-        gamePanel.placeToken(player, slot);
+        tokens.getAndAccumulate(slot * tokenWords + player / 64, 1L << (player % 64), (word, bit) -> word | bit);
+        dirtyTokens.add(slot);
+        changed();
     }
 
     @Override
     public void removeTokens() {
-        gamePanel.removeTokens();
+        for (int i = 0; i < tokens.length(); i++)
+            tokens.set(i, 0);
+        dirtyTokens.addAll();
+        changed();
     }
 
     @Override
     public void removeTokens(int slot) {
-        gamePanel.removeTokens(slot);
+        for (int word = 0; word < tokenWords; word++)
+            tokens.set(slot * tokenWords + word, 0);
+        dirtyTokens.add(slot);
+        changed();
     }
 
     @Override
     public void removeToken(int player, int slot) {
-        gamePanel.removeToken(player, slot);
+        tokens.getAndAccumulate(slot * tokenWords + player / 64, ~(1L << (player % 64)), (word, mask) -> word & mask);
+        dirtyTokens.add(slot);
+        changed();
     }
 
     @Override
     public void setCountdown(long millies, boolean warn) {
-        timerPanel.setCountdown(millies, warn);
+        pendingTimer.set(millies << 2 | (warn ? TIMER_WARN : 0));
+        changed();
     }
 
     @Override
     public void setElapsed(long millies) {
-        timerPanel.setElapsed(millies);
+        pendingTimer.set(millies << 2 | TIMER_ELAPSED);
+        changed();
     }
 
     @Override
     public void setFreeze(int player, long millies) {
-        playersPanel.setFreeze(player, millies);
+        pendingFreezes.set(player, millies);
+        dirtyPlayers.add(player);
+        changed();
     }
 
     @Override
     public void setScore(int player, int score) {
-        playersPanel.setScore(player, score);
+        pendingScores.set(player, score);
+        dirtyPlayers.add(player);
+        changed();
     }
 
     @Override
     public void announceWinner(int[] players) {
-        playersPanel.setVisible(false);
-        winnerPanel.announceWinner(players);
-        winnerPanel.setVisible(true);
+        EventQueue.invokeLater(() -> {
+            frame();
+            playersPanel.setVisible(false);
+            winnerPanel.announceWinner(players);
+            winnerPanel.setVisible(true);
+        });
     }
 
     @Override
     public void dispose() {
+        frameTimer.stop();
+        cardImages.close();
         super.dispose();
     }
 }
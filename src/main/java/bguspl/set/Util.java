@@ -1,6 +1,7 @@
 package bguspl.set;
 
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * An interface for general utilities provided for convenience.
@@ -23,6 +24,15 @@ public interface Util {
      */
     int[][] cardsToFeatures(int[] cards);
 
+    /**
+     * Converts a card id to its packed representation: config.featureCount bit fields of config.featureSize bits
+     * each, where field i holds feature i of the card as a single set bit (bit f for feature value f).
+     *
+     * @param card - the card id.
+     * @return - the packed card, or 0 if the configuration does not fit in 63 bits.
+     */
+    long cardToPacked(int card);
+
     /**
      * Checks if an array of cards forms a legal set.
      *
@@ -31,6 +41,15 @@ public interface Util {
      */
     boolean testSet(int[] cards);
 
+    /**
+     * Finds the only card that forms a legal set with the two given cards (for 3 cards per set, i.e. featureSize 3).
+     *
+     * @param first  - the first card id.
+     * @param second - the second card id.
+     * @return - the id of the completing card, or -1 if config.featureSize is not 3.
+     */
+    int completeSet(int first, int second);
+
     /**
      * Finds and returns up to count sets in the given collection of cards.
      *
@@ -40,6 +59,16 @@ public interface Util {
      */
     List<int[]> findSets(List<Integer> deck, int count);
 
+    /**
+     * Lazily enumerates the sets in the given collection of cards: each set is searched for only when the stream asks
+     * for the next element, so short-circuiting operations (e.g. findAny, limit) stop the search early.
+     * The stream is sequential (call parallel() to split the search across threads).
+     *
+     * @param deck - a collection of cards (may not include null objects).
+     * @return - a stream of integer arrays, each one contains the card ids of a legal set.
+     */
+    Stream<int[]> streamSets(List<Integer> deck);
+
     /**
      * Spin a random number of times (for debugging/testing).
      */
@@ -3,8 +3,15 @@ package bguspl.set;
 import java.util.Arrays;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * The implementation of the UserInterface interface.
@@ -13,8 +20,74 @@ public class UtilImpl implements Util {
 
     private final Config config;
 
+    /**
+     * The packed representation of every card in the deck (see cardToPacked), or null if the configuration needs
+     * more than 63 bits per card.
+     */
+    private final long[] packedDeck;
+
+    /**
+     * Masks over the packed representation: all the feature bits, the top bit of every feature field and the bits
+     * below it.
+     */
+    private final long allFieldsMask;
+    private final long highBitsMask;
+    private final long lowBitsMask;
+
+    /**
+     * The features of every card in the deck, featureCount consecutive entries per card, and the weight of each
+     * feature in a card id. Only built when featureSize is 3 (i.e. when two cards determine the third card of a set).
+     */
+    private final byte[] deckFeatures;
+    private final int[] featureWeights;
+
+    /**
+     * The value of a feature completing a set, indexed by 3 * first value + second value.
+     */
+    private static final int[] THIRD_FEATURE = {0, 2, 1, 2, 1, 0, 1, 0, 2};
+
     public UtilImpl(Config config) {
         this.config = config;
+
+        if ((long) config.featureCount * config.featureSize < Long.SIZE) {
+            long field = (1L << config.featureSize) - 1;
+            long high = 1L << (config.featureSize - 1);
+            long all = 0, highs = 0;
+            for (int i = 0; i < config.featureCount; ++i) {
+                all |= field << (i * config.featureSize);
+                highs |= high << (i * config.featureSize);
+            }
+            allFieldsMask = all;
+            highBitsMask = highs;
+            lowBitsMask = all & ~highs;
+
+            int[] features = new int[config.featureCount];
+            packedDeck = new long[config.deckSize];
+            for (int card = 0; card < config.deckSize; ++card) {
+                cardToFeatures(card, features);
+                for (int i = 0; i < config.featureCount; ++i)
+                    packedDeck[card] |= 1L << (i * config.featureSize + features[i]);
+            }
+        } else {
+            allFieldsMask = highBitsMask = lowBitsMask = 0;
+            packedDeck = null;
+        }
+
+        if (config.featureSize == 3) {
+            int[] features = new int[config.featureCount];
+            deckFeatures = new byte[config.deckSize * config.featureCount];
+            for (int card = 0; card < config.deckSize; ++card) {
+                cardToFeatures(card, features);
+                for (int i = 0; i < config.featureCount; ++i)
+                    deckFeatures[card * config.featureCount + i] = (byte) features[i];
+            }
+            featureWeights = new int[config.featureCount];
+            for (int i = config.featureCount - 1, weight = 1; i >= 0; --i, weight *= config.featureSize)
+                featureWeights[i] = weight;
+        } else {
+            deckFeatures = null;
+            featureWeights = null;
+        }
     }
 
     private void cardToFeatures(int card, int[] features) {
@@ -38,8 +111,36 @@ public class UtilImpl implements Util {
         return features;
     }
 
+    @Override
+    public long cardToPacked(int card) {
+        return packedDeck == null ? 0 : packedDeck[card];
+    }
+
+    /**
+     * Sets the top bit of every feature field of the packed value x that is not zero (and clears all other bits).
+     */
+    private long nonZeroFields(long x) {
+        return (((x & lowBitsMask) + lowBitsMask) | x) & highBitsMask;
+    }
+
     @Override
     public boolean testSet(int[] cards) {
+        if (packedDeck == null || cards.length != config.featureSize) return testSetByFeatures(cards);
+
+        // a feature is sameSame iff its bit survives the AND of all cards, and it is butDifferent iff the OR of all
+        // cards fills its whole field (featureSize cards with featureSize distinct values).
+        long or = 0, and = allFieldsMask;
+        for (int card : cards) {
+            long packed = packedDeck[card];
+            or |= packed;
+            and &= packed;
+        }
+        long notSameSame = ~nonZeroFields(and) & highBitsMask;
+        long notButDifferent = nonZeroFields(~or & allFieldsMask);
+        return (notSameSame & notButDifferent) == 0;
+    }
+
+    private boolean testSetByFeatures(int[] cards) {
         int[][] features = cardsToFeatures(Arrays.copyOf(cards, cards.length));
         for (int i = 0; i < config.featureCount; ++i) {
             boolean sameSame = true, butDifferent = true;
@@ -64,30 +165,49 @@ public class UtilImpl implements Util {
         return true;
     }
 
+    @Override
+    public int completeSet(int first, int second) {
+        if (deckFeatures == null) return -1;
+        int third = 0;
+        int firstFeatures = first * config.featureCount, secondFeatures = second * config.featureCount;
+        for (int i = 0; i < config.featureCount; ++i)
+            third += featureWeights[i] * THIRD_FEATURE[3 * deckFeatures[firstFeatures + i] + deckFeatures[secondFeatures + i]];
+        return third;
+    }
+
     @Override
     public List<int[]> findSets(List<Integer> deck, int count) {
-        LinkedList<int[]> sets = new LinkedList<>();
-        int n = deck.size();
-        int r = config.featureSize;
-        int[] combination = new int[r];
-
-        for (int i = 0; i < r; ++i)
-            combination[i] = i;
-
-        while (combination[r - 1] < deck.size()) {
-            int[] cards = Arrays.stream(combination).map(deck::get).sorted().toArray();
-            if (testSet(cards)) {
-                sets.add(cards);
-                if (sets.size() >= count) return sets;
-            }
+        int[] cards = deck.stream().mapToInt(Integer::intValue).toArray();
+        if (config.parallelFindSetsThreshold >= 0 && cards.length > config.parallelFindSetsThreshold)
+            return findSetsInParallel(cards, count);
 
-            // generate next combination in lexicographic order
-            int t = r - 1;
-            while (t != 0 && combination[t] == n - r + t) --t;
-            combination[t]++;
-            for (int i = t + 1; i < r; i++) combination[i] = combination[i - 1] + 1;
-        }
-        return sets;
+        return StreamSupport.stream(new SetSpliterator(this, cards, config, null), false)
+                .limit(Math.max(count, 0))
+                .collect(Collectors.toCollection(LinkedList::new));
+    }
+
+    @Override
+    public Stream<int[]> streamSets(List<Integer> deck) {
+        int[] cards = deck.stream().mapToInt(Integer::intValue).toArray();
+        return StreamSupport.stream(new SetSpliterator(this, cards, config, null), false);
+    }
+
+    /**
+     * Searches for sets with all the threads of the common ForkJoinPool. The search space is split by the first card
+     * of a set and every part stops as soon as count sets were found.
+     *
+     * @return - up to count sets, in no particular order.
+     */
+    private List<int[]> findSetsInParallel(int[] cards, int count) {
+        Queue<int[]> sets = new ConcurrentLinkedQueue<>();
+        AtomicInteger remaining = new AtomicInteger(count);
+        AtomicBoolean found = new AtomicBoolean(count <= 0);
+        StreamSupport.stream(new SetSpliterator(this, cards, config, found), true).forEach(set -> {
+            int left = remaining.decrementAndGet();
+            if (left >= 0) sets.add(set);
+            if (left <= 0) found.set(true);
+        });
+        return new LinkedList<>(sets);
     }
 
     public void spin() {
@@ -0,0 +1,130 @@
+package bguspl.set.ex;
+
+import java.util.Arrays;
+
+/**
+ * Maps the cards on the table to their slots.
+ * For small decks this is a plain array indexed by card. For big decks it is an open addressing hash table sized by the
+ * number of slots, so the memory does not grow with the deck.
+ *
+ * @inv get(card) == slot iff put(card, slot) was called and remove(card) was not called since.
+ */
+public class CardIndex {
+
+    /**
+     * The value returned for a card that is not in the index.
+     */
+    public static final int NONE = -1;
+
+    /**
+     * The largest deck indexed by a plain array.
+     */
+    static final int MAX_DENSE_DECK_SIZE = 1024;
+
+    /**
+     * The slot per card (NONE if none), or null if the hash table is used.
+     */
+    private final int[] dense;
+
+    /**
+     * The hash table: the card in each bucket (NONE if empty) and its slot.
+     */
+    private final int[] keys;
+    private final int[] values;
+    private final int shift;
+
+    /**
+     * The class constructor.
+     *
+     * @param deckSize  - the number of cards in the deck.
+     * @param tableSize - the number of slots on the table (the most cards that are indexed at once).
+     */
+    public CardIndex(int deckSize, int tableSize) {
+        if (deckSize <= MAX_DENSE_DECK_SIZE) {
+            dense = new int[deckSize];
+            Arrays.fill(dense, NONE);
+            keys = values = null;
+            shift = 0;
+        } else {
+            // a power of two with at least twice as many buckets as slots, so the load stays under a half
+            int capacity = Integer.highestOneBit(Math.max(tableSize, 1) * 4 - 1);
+            dense = null;
+            keys = new int[capacity];
+            values = new int[capacity];
+            Arrays.fill(keys, NONE);
+            shift = 32 - Integer.numberOfTrailingZeros(capacity);
+        }
+    }
+
+    private int bucket(int card) {
+        return (card * 0x9E3779B9) >>> shift;
+    }
+
+    private int next(int bucket) {
+        return (bucket + 1) & (keys.length - 1);
+    }
+
+    /**
+     * @param card - the card to look up.
+     * @return - the slot of the card, or NONE if it is not in the index.
+     */
+    public int get(int card) {
+        if (dense != null) return dense[card];
+        for (int b = bucket(card); keys[b] != NONE; b = next(b))
+            if (keys[b] == card)
+                return values[b];
+        return NONE;
+    }
+
+    /**
+     * Sets the slot of a card.
+     *
+     * @param card - the card.
+     * @param slot - the slot it is in.
+     */
+    public void put(int card, int slot) {
+        if (dense != null) {
+            dense[card] = slot;
+            return;
+        }
+        int b = bucket(card);
+        while (keys[b] != NONE && keys[b] != card)
+            b = next(b);
+        keys[b] = card;
+        values[b] = slot;
+    }
+
+    /**
+     * Removes a card from the index.
+     *
+     * @param card - the card to remove.
+     * @return - the slot the card was in, or NONE if it was not in the index.
+     */
+    public int remove(int card) {
+        if (dense != null) {
+            int slot = dense[card];
+            dense[card] = NONE;
+            return slot;
+        }
+        int b = bucket(card);
+        while (keys[b] != card) {
+            if (keys[b] == NONE) return NONE;
+            b = next(b);
+        }
+        int slot = values[b];
+
+        // shift back the following entries of the probe sequence, so that no lookup stops at the hole
+        for (int hole = b, i = next(b); keys[i] != NONE; i = next(i)) {
+            int home = bucket(keys[i]);
+            // move the entry unless its home bucket is cyclically in (hole, i]
+            if (hole <= i ? (home <= hole || home > i) : (home <= hole && home > i)) {
+                keys[hole] = keys[i];
+                values[hole] = values[i];
+                hole = i;
+            }
+            b = hole;
+        }
+        keys[b] = NONE;
+        return slot;
+    }
+}
@@ -0,0 +1,30 @@
+package bguspl.set.ex;
+
+/**
+ * A player's claim that the cards under his tokens form a legal set.
+ *
+ * @inv player >= 0
+ */
+public class Claim {
+
+    /**
+     * The id of the player that made the claim.
+     */
+    public final int player;
+
+    /**
+     * The cards under the player's tokens when the claim was made.
+     */
+    public final int[] cards;
+
+    /**
+     * The time (System.nanoTime) the claim was submitted to the dealer.
+     */
+    public final long arrivalNanos;
+
+    public Claim(int player, int[] cards, long arrivalNanos) {
+        this.player = player;
+        this.cards = cards;
+        this.arrivalNanos = arrivalNanos;
+    }
+}
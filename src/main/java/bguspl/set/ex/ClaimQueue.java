@@ -0,0 +1,69 @@
+package bguspl.set.ex;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * A lock-free multi-producer single-consumer queue of claims (players submit, only the dealer polls).
+ * Producers link a new node after swapping the tail, so a claim becomes visible to the consumer once its predecessor
+ * points to it; an offer never waits for other producers or for the consumer.
+ *
+ * @inv head.claim == null (head is the last consumed node or the initial stub)
+ */
+public class ClaimQueue {
+
+    private static final class Node {
+        private Claim claim;
+        private volatile Node next;
+
+        private Node(Claim claim) {
+            this.claim = claim;
+        }
+    }
+
+    /**
+     * The most recently offered node (shared by the producers).
+     */
+    private final AtomicReference<Node> tail;
+
+    /**
+     * The last consumed node (used by the consumer only).
+     */
+    private Node head;
+
+    public ClaimQueue() {
+        head = new Node(null);
+        tail = new AtomicReference<>(head);
+    }
+
+    /**
+     * Adds a claim to the queue (may be called by any thread).
+     *
+     * @param claim - the claim to add.
+     */
+    public void offer(Claim claim) {
+        Node node = new Node(claim);
+        Node previous = tail.getAndSet(node);
+        previous.next = node;
+    }
+
+    /**
+     * Removes the oldest claim from the queue (must only be called by the consumer thread).
+     *
+     * @return - the oldest claim, or null if there is none.
+     */
+    public Claim poll() {
+        Node next = head.next;
+        if (next == null) return null;
+        Claim claim = next.claim;
+        next.claim = null;
+        head = next;
+        return claim;
+    }
+
+    /**
+     * @return - true iff there is no claim that can be polled (must only be called by the consumer thread).
+     */
+    public boolean isEmpty() {
+        return head.next == null;
+    }
+}
@@ -0,0 +1,41 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+
+/**
+ * Chooses the key presses of a computer player.
+ * The presses are fed to the player like the key presses of a human player, so a strategy only decides which slots
+ * to press and when.
+ * An implementation named in the ComputerStrategy property needs a public constructor taking (Env, Table, int).
+ */
+public interface ComputerStrategy {
+
+    /**
+     * Decides the next key presses of the player, waiting as long as the player would before pressing them.
+     *
+     * @return - the slots to press, in order.
+     * @throws InterruptedException if interrupted while waiting (e.g. when the game terminates).
+     */
+    int[] nextPresses() throws InterruptedException;
+
+    /**
+     * Creates the strategy configured for computer players.
+     *
+     * @param env    - the game environment object.
+     * @param table  - the table the player plays on.
+     * @param player - the id of the player.
+     * @return - the strategy (random key presses if the configured one cannot be created).
+     */
+    static ComputerStrategy create(Env env, Table table, int player) {
+        String name = env.config.computerStrategy;
+        if (name.equalsIgnoreCase("random")) return new RandomKeysStrategy(env);
+        if (name.equalsIgnoreCase("sets")) return new SetFindingStrategy(env, table, player);
+        try {
+            return (ComputerStrategy) Class.forName(name).getConstructor(Env.class, Table.class, int.class)
+                    .newInstance(env, table, player);
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            env.logger.severe("warning: cannot use computer strategy " + name + " (" + e + "). Using random key presses.");
+            return new RandomKeysStrategy(env);
+        }
+    }
+}
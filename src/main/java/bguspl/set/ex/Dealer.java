@@ -1,14 +1,11 @@
 package bguspl.set.ex;
 
 import bguspl.set.Env;
+import bguspl.set.Journal;
+import bguspl.set.ThreadLogger;
 
-import java.util.LinkedList;
-import java.util.List;
-import java.util.Queue;
-import java.util.Random;
-import java.util.concurrent.Semaphore;
-import java.util.stream.Collectors;
-import java.util.stream.IntStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
 
 /**
  * This class manages the dealer's threads and data
@@ -27,9 +24,27 @@ public class Dealer implements Runnable {
     private final Player[] players;
 
     /**
-     * The list of card ids that are left in the dealer's deck.
+     * The card ids that are left in the dealer's deck.
      */
-    private final List<Integer> deck;
+    private final Deck deck;
+
+    /**
+     * The next cards to be drawn from the deck, announced to the ui so that it can prepare them (up to a table's
+     * worth).
+     */
+    private final int[] upcomingCards;
+
+    /**
+     * Scratch buffers for dealing and collecting cards, sized to the table, so that the dealer does not allocate when
+     * it places or removes cards.
+     */
+    private final int[] slotsBuffer;
+    private final int[] cardsBuffer;
+
+    /**
+     * The number of legal sets left among the cards in play (the deck and the table).
+     */
+    private final SetCounter setCounter;
 
     /**
      * True iff game should be terminated due to an external event.
@@ -42,14 +57,30 @@ public class Dealer implements Runnable {
     private long reshuffleTime = Long.MAX_VALUE;
 
     /**
-     * The list of the players that placed 3 tokens on the board.
+     * The claims of the players that placed 3 tokens on the board, in arrival order.
      */
-    private Queue<Integer> toCheckQueue;
+    private final ClaimQueue claims;
 
     /**
-     * The dealer semaphore
+     * The live metrics of the game (claims, verdicts, timer loop iterations, reshuffles).
      */
-    protected Semaphore semaphore;
+    private final GameMetrics metrics;
+
+    /**
+     * The thread running the dealer (woken up when a claim arrives).
+     */
+    private volatile Thread dealerThread;
+
+    /**
+     * The countdown display resolution while the turn timeout warning is shown.
+     */
+    private static final long WARNING_TICK_MILLIS = 10;
+
+    /**
+     * The longest the dealer sleeps when there is nothing to display.
+     */
+    private static final long IDLE_TICK_MILLIS = 1000;
+
     /**
      * Timer
      */
@@ -70,9 +101,16 @@ public class Dealer implements Runnable {
         this.env = env;
         this.table = table;
         this.players = players;
-        this.toCheckQueue = new LinkedList<>();
-        this.semaphore = new Semaphore(1, true);
-        deck = IntStream.range(0, env.config.deckSize).boxed().collect(Collectors.toList());
+        this.claims = new ClaimQueue();
+        deck = Deck.seeded(env.config.deckSize, env.config.deckSeed);
+        upcomingCards = new int[env.config.tableSize];
+        slotsBuffer = new int[env.config.tableSize];
+        cardsBuffer = new int[env.config.tableSize];
+        setCounter = new SetCounter(env);
+        for (int i = 0; i < deck.size(); i++)
+            setCounter.add(deck.get(i));
+        metrics = new GameMetrics(players);
+        metrics.remainingSets(setCounter.knownCount());
     }
 
     /**
@@ -80,19 +118,36 @@ public class Dealer implements Runnable {
      */
     @Override
     public void run() {
-        for (Player player: players) {
-            Thread playerThread = new Thread(player);
-            playerThread.start();
-            System.out.printf("Info: Thread %s starting.%n", Thread.currentThread().getName());
+        dealerThread = Thread.currentThread();
+        Thread[] playerThreads = new Thread[players.length];
+        for (int i = 0; i < players.length; i++) {
+            playerThreads[i] = ThreadLogger.newThread(env, players[i], "player-" + players[i].id);
+            playerThreads[i].start();
         }
-        while (!shouldFinish()) {
-            placeCardsOnTable();
-            timerLoop();
-            updateTimerDisplay(false);
-            removeAllCardsFromTable();
+        try {
+            while (!shouldFinish()) {
+                placeCardsOnTable();
+                timerLoop();
+                updateTimerDisplay(false);
+                removeAllCardsFromTable();
+                if (!shouldFinish()) metrics.reshuffled();
+            }
+            announceWinners();
+        } finally {
+            terminatePlayers(playerThreads);
+        }
+    }
+
+    /**
+     * Terminates the player threads (in reverse order of their creation) and waits for them to finish.
+     */
+    private void terminatePlayers(Thread[] playerThreads) {
+        for (int i = players.length - 1; i >= 0; i--) {
+            players[i].terminate();
+            try {
+                playerThreads[i].join();
+            } catch (InterruptedException ignored) {}
         }
-        announceWinners();
-        System.out.printf("Info: Thread %s terminated.%n", Thread.currentThread().getName());
     }
 
     /**
@@ -101,33 +156,37 @@ public class Dealer implements Runnable {
     private void timerLoop() {
         reshuffleTime = System.currentTimeMillis() - env.config.turnTimeoutMillis + 1000;
         updateTimerDisplay(true);
-        while (!terminate && System.currentTimeMillis() < reshuffleTime) {
+        while (!terminate && System.currentTimeMillis() < reshuffleTime && setCounter.hasSets()) {
             sleepUntilWokenOrTimeout();
+            metrics.timerLoopIteration();
             updateTimerDisplay(false);
-            if (!toCheckQueue.isEmpty()) {
-                synchronized (this) {
-                    int playerID = toCheckQueue.peek();
-                    boolean isSet = dealerCheck(playerID);
-                    if (isSet) {
-                        removeCardsFromTable();
-                        placeCardsOnTable();
-                    } else {
-                        removeTokensFromTable(playerID);
-                    }
-                    rewardOrPenalizePlayer(toCheckQueue.poll(), isSet);
-                    /*players[playerID].locked = false;
-                    System.out.println("Dealer is about to notify all but everyone else but " + playerID + " should get locked again");
-                    notifyAll();*/
+            Claim claim;
+            while ((claim = claims.poll()) != null) {
+                metrics.claimPolled();
+                if (!table.isClaimCurrent(claim)) {
+                    // some of the cards were replaced (or tokens removed) since the claim was made
+                    players[claim.player].claimDiscarded();
+                    env.journal.verdict(claim.player, Journal.VERDICT_DISCARDED);
+                    metrics.claimDiscarded();
+                    continue;
+                }
+                boolean isSet = dealerCheck(claim);
+                if (isSet) {
+                    removeCardsFromTable(claim);
+                    placeCardsOnTable();
+                } else {
+                    removeTokensFromTable(claim.player);
                 }
+                env.journal.verdict(claim.player, isSet ? Journal.VERDICT_LEGAL : Journal.VERDICT_ILLEGAL);
+                rewardOrPenalizePlayer(claim.player, isSet);
+                metrics.verdict(isSet, claim.arrivalNanos);
             }
         }
     }
 
 
     private void removeTokensFromTable(int player) {
-        if (table.removePlayersTokens(player)) {
-            players[player].removeAllTokens();
-        }
+        table.removePlayersTokens(player);
     }
 
     /**
@@ -135,7 +194,8 @@ public class Dealer implements Runnable {
      */
     public void terminate() {
         //To close all threads
-        // TODO implement
+        terminate = true;
+        LockSupport.unpark(dealerThread);
     }
 
     /**
@@ -144,33 +204,69 @@ public class Dealer implements Runnable {
      * @return true iff the game should be finished.
      */
     private boolean shouldFinish() {
-        return terminate || env.util.findSets(deck, 1).size() == 0;
+        return terminate || !setCounter.hasSets();
     }
 
     /**
-     * Checks if any cards should be removed from the table and returns them to the deck.
+     * @return - the time from the arrival of each checked claim until its verdict (the count is the number of
+     * claims checked).
      */
-    private void removeCardsFromTable() {
-        int[] cardsToRemove = table.getPlayerTokenedCards(toCheckQueue.peek());
-        synchronized (table) { //should it be syncronized here?
-            for (int card : cardsToRemove) {
-                System.out.println(card);
-                Integer slot = table.cardToSlot[card];
-                if (slot == null)
-                    System.out.println(slot);
-                LinkedList<Integer> playersToRemoveToken = table.removeTokens(slot);
-                for (Integer player : playersToRemoveToken) {
-                    players[player].decreasePlacedTokens();
-                }
-                table.removeCard(slot);
-            }
+    public LatencyHistogram getVerdictLatency() {
+        return metrics.verdictLatency();
+    }
+
+    /**
+     * @return - the number of claims that were legal sets.
+     */
+    public long getValidClaims() {
+        return metrics.getLegalVerdicts();
+    }
+
+    /**
+     * @return - the number of claims discarded because their cards were no longer under the player's tokens.
+     */
+    public long getDiscardedClaims() {
+        return metrics.getDiscardedClaims();
+    }
+
+    /**
+     * @return - the live metrics of the game.
+     */
+    public GameMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Note: this may recount the sets, so it should only be called from the dealer thread or after the game ended
+     * (GameMetrics publishes a snapshot for other threads).
+     *
+     * @return - the number of legal sets that can still be formed from the deck and the cards on the table.
+     */
+    public int remainingSets() {
+        return setCounter.count();
+    }
+
+    /**
+     * Removes the cards of a legal set from the table (they are out of the game).
+     *
+     * @param claim - the claim whose cards form the set.
+     */
+    private void removeCardsFromTable(Claim claim) {
+        int count = claim.cards.length;
+        for (int i = 0; i < count; i++)
+            slotsBuffer[i] = table.cardToSlot.get(claim.cards[i]);
+        // remove the cards first, so that no token can be placed on the slots after their tokens are removed
+        table.removeCards(slotsBuffer, count, cardsBuffer);
+        for (int i = 0; i < count; i++) {
+            table.removeTokens(slotsBuffer[i]);
+            setCounter.remove(claim.cards[i]);
         }
+        metrics.remainingSets(setCounter.knownCount());
     }
 
 
-    private boolean dealerCheck(int player) {
-        int [] cardsToCheck = table.getPlayerTokenedCards(player);
-        boolean isSet = env.util.testSet(cardsToCheck);
+    private boolean dealerCheck(Claim claim) {
+        boolean isSet = env.util.testSet(claim.cards);
         return isSet;
     }
 
@@ -187,36 +283,49 @@ public class Dealer implements Runnable {
      * Check if any cards can be removed from the deck and placed on the table.
      */
     private void placeCardsOnTable() {
-        // TODO implement
-        while(!deck.isEmpty() && table.findEmptySlot() != -1){
-            table.placeCard(randomChooseCardFromDeck(), table.findEmptySlot());
-        }
+        int count = Math.min(table.emptySlots(slotsBuffer), deck.size());
+        for (int i = 0; i < count; i++)
+            cardsBuffer[i] = deck.draw();
+        table.placeCards(cardsBuffer, slotsBuffer, count);
+        env.ui.upcomingCards(upcomingCards, deck.upcoming(upcomingCards));
     }
 
     /**
-     * Sleep for a fixed amount of time or until the thread is awakened for some purpose.
+     * Sleep until the next time the timer display changes (or the deck should be reshuffled), or until the thread is
+     * awakened by a claim or by termination.
      */
     private void sleepUntilWokenOrTimeout() {
-        // TODO implement
-        if(reshuffleTime - System.currentTimeMillis() > 5000){
-            try{
-                Thread.sleep(env.config.tableDelayMillis);
-            }
-            catch (InterruptedException ignored){}
+        long wakeTime = nextTimerTick();
+        while (!terminate && claims.isEmpty()) {
+            long sleepMillis = wakeTime - System.currentTimeMillis();
+            if (sleepMillis <= 0) break;
+            LockSupport.parkNanos(this, TimeUnit.MILLISECONDS.toNanos(sleepMillis));
         }
-        else{
-            try{
-                Thread.sleep(10);
-            }
-            catch (InterruptedException ignored){}
+    }
+
+    /**
+     * @return - the next time (in epoch millis) that the timer display has to be updated.
+     */
+    private long nextTimerTick() {
+        long now = System.currentTimeMillis();
+        if (env.config.turnTimeoutMillis > TURN_TIME_INDICATOR) {
+            long timeLeft = reshuffleTime - now;
+            if (timeLeft < env.config.turnTimeoutWarningMillis)
+                return now + Math.min(WARNING_TICK_MILLIS, timeLeft);
+            // the countdown shows whole seconds, wake up when the next second starts or the warning begins
+            long untilNextSecond = timeLeft % 1000 == 0 ? 1000 : timeLeft % 1000;
+            long untilWarning = timeLeft - env.config.turnTimeoutWarningMillis;
+            return now + Math.max(1, Math.min(untilNextSecond, untilWarning));
         }
+        if (env.config.turnTimeoutMillis == TURN_TIME_INDICATOR)
+            return now + 1000 - (now - startTime) % 1000;
+        return now + IDLE_TICK_MILLIS;
     }
 
     /**
      * Reset and/or update the countdown and the countdown display.
      */
     private void updateTimerDisplay(boolean reset) {
-        // TODO implement
         if(reset){
             reshuffleTime = Long.MAX_VALUE;
             startTime = System.currentTimeMillis();
@@ -224,6 +333,7 @@ public class Dealer implements Runnable {
                 reshuffleTime = System.currentTimeMillis() + env.config.turnTimeoutMillis;
                 //env.ui.setCountdown(60,false);
             }
+            env.journal.timerReset(env.config.turnTimeoutMillis);
         }
         if(env.config.turnTimeoutMillis > TURN_TIME_INDICATOR){
             long timeLeft = reshuffleTime-System.currentTimeMillis();
@@ -240,24 +350,17 @@ public class Dealer implements Runnable {
      * Returns all the cards from the table to the deck.
      */
     private void removeAllCardsFromTable() {
-        for (int i = 0; i < table.slotToCard.length; i++) {
-            int addToDeck = table.slotToCard[i];
-            table.slotToCard[i] = null;
-            table.cardToSlot[addToDeck] = null;
-            deck.add(addToDeck);
-        }
+        int count = table.occupiedSlots(slotsBuffer);
+        table.removeCards(slotsBuffer, count, cardsBuffer);
+        deck.addAll(cardsBuffer, count);
         table.removeAllTokens();
-        for (Player player: players) {
-            player.removeAllTokens();
-        }
     }
 
     /**
      * Check who is/are the winner/s and displays them.
      */
     private void announceWinners() {
-        // TODO implement
-        int max = 0;
+        int max = Integer.MIN_VALUE; // scores can be negative (penalties)
         int count = 0;
         for(Player p: players){
             if(p.getScore() > max){
@@ -273,20 +376,20 @@ public class Dealer implements Runnable {
         int i = 0;
         for(Player p: players) {
             if(p.getScore() == max)
-                winners[i] = p.id;
-            i++;
+                winners[i++] = p.id;
         }
         env.ui.announceWinner(winners);
     }
 
-    //added
-    private int randomChooseCardFromDeck(){
-        Random rand = new Random();
-        return deck.remove(rand.nextInt(deck.size()));
-    }
-
-    // its a try
-    public synchronized void addToCheckList (int playerID) {
-        toCheckQueue.add(playerID);
+    /**
+     * Submits a claim to the dealer (called by the player threads, does not block).
+     *
+     * @param playerID - the id of the player making the claim.
+     * @param cards    - the cards under the player's tokens.
+     */
+    public void addToCheckList (int playerID, int[] cards) {
+        claims.offer(new Claim(playerID, cards, System.nanoTime()));
+        metrics.claimSubmitted();
+        LockSupport.unpark(dealerThread);
     }
 }
\ No newline at end of file
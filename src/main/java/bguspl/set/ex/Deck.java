@@ -0,0 +1,167 @@
+package bguspl.set.ex;
+
+import java.util.SplittableRandom;
+
+/**
+ * The cards left in the dealer's deck, drawn in random order.
+ * The cards are kept in a primitive array: a draw swaps a random card with the last one and shrinks the deck (a step
+ * of a Fisher-Yates shuffle), so drawing and returning cards take O(1) time and no allocations.
+ * The next draws can be chosen ahead of time (see upcoming): the chosen cards wait at the end of the array, in the
+ * order they will be drawn.
+ *
+ * @inv 0 <= size() <= capacity, and the deck holds no card twice (as long as only drawn cards are returned)
+ */
+public class Deck {
+
+    /**
+     * The cards in the deck, in cards[0..size).
+     */
+    private final int[] cards;
+
+    /**
+     * The number of cards in the deck.
+     */
+    private int size;
+
+    /**
+     * The number of cards at the end of the deck that were already chosen for the next draws (cards[size - 1] is drawn
+     * first).
+     */
+    private int chosen;
+
+    /**
+     * The source of randomness of the draws.
+     */
+    private final SplittableRandom random;
+
+    /**
+     * The class constructor.
+     *
+     * @param deckSize - the number of cards in the game (the deck starts with the cards 0 .. deckSize - 1).
+     * @param random   - the source of randomness of the draws.
+     */
+    public Deck(int deckSize, SplittableRandom random) {
+        this.cards = new int[deckSize];
+        this.random = random;
+        for (int card = 0; card < deckSize; card++)
+            cards[card] = card;
+        this.size = deckSize;
+    }
+
+    /**
+     * @param deckSize - the number of cards in the game.
+     * @param seed     - the seed of the draws (0 for a random seed).
+     * @return - a full deck that draws with the given seed.
+     */
+    public static Deck seeded(int deckSize, long seed) {
+        return new Deck(deckSize, seed == 0 ? new SplittableRandom() : new SplittableRandom(seed));
+    }
+
+    /**
+     * @return - the number of cards in the deck.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return - true iff there are no cards in the deck.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * @param i - an index in the deck (0 <= i < size()).
+     * @return - the card at the index (the order is arbitrary).
+     */
+    public int get(int i) {
+        return cards[i];
+    }
+
+    /**
+     * Removes a random card from the deck.
+     *
+     * @return - the card drawn.
+     * @pre - !isEmpty()
+     */
+    public int draw() {
+        if (chosen == 0) choose();
+        chosen--;
+        return cards[--size];
+    }
+
+    /**
+     * Chooses the card of the next draw that was not chosen yet: a random card among the ones not chosen, moved to
+     * the position before the chosen ones.
+     */
+    private void choose() {
+        int position = size - 1 - chosen;
+        int i = random.nextInt(position + 1);
+        int card = cards[i];
+        cards[i] = cards[position];
+        cards[position] = card;
+        chosen++;
+    }
+
+    /**
+     * Chooses the next cards to be drawn (without drawing them), e.g. to prepare for them. The cards are drawn in this
+     * order unless cards are returned to the deck first.
+     *
+     * @param upcoming - the array to fill with the next cards (up to its length).
+     * @return - the number of cards written (less than the length of upcoming if the deck has fewer cards).
+     */
+    public int upcoming(int[] upcoming) {
+        int count = Math.min(upcoming.length, size);
+        while (chosen < count)
+            choose();
+        for (int i = 0; i < count; i++)
+            upcoming[i] = cards[size - 1 - i];
+        return count;
+    }
+
+    /**
+     * Removes random cards from the deck.
+     *
+     * @param drawn - the array to fill with the cards drawn (up to its length).
+     * @return - the number of cards drawn (less than the length of drawn if the deck runs out).
+     */
+    public int draw(int[] drawn) {
+        int count = Math.min(drawn.length, size);
+        for (int i = 0; i < count; i++)
+            drawn[i] = draw();
+        return count;
+    }
+
+    /**
+     * Returns a card to the deck.
+     *
+     * @param card - the card to return (which was drawn from this deck).
+     */
+    public void add(int card) {
+        chosen = 0; // the returned card may be drawn too
+        cards[size++] = card;
+    }
+
+    /**
+     * Returns cards to the deck.
+     *
+     * @param returned - the cards to return (EMPTY entries are skipped).
+     */
+    public void addAll(int[] returned) {
+        addAll(returned, returned.length);
+    }
+
+    /**
+     * Returns cards to the deck.
+     *
+     * @param returned - the cards to return (EMPTY entries are skipped).
+     * @param count    - the number of entries of returned to use.
+     */
+    public void addAll(int[] returned, int count) {
+        chosen = 0; // the returned cards may be drawn too
+        for (int i = 0; i < count; i++)
+            if (returned[i] != Table.EMPTY)
+                cards[size++] = returned[i];
+    }
+}
@@ -0,0 +1,199 @@
+package bguspl.set.ex;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The counters and histograms of a running game, exposed as a JMX MBean.
+ * Recording is lock-free: the players' claims are counted with a LongAdder, and the counters written only by the
+ * dealer thread are plain volatile longs, so the metrics stay on in production. Per-player values are read from the
+ * players when the MBean is queried.
+ */
+public class GameMetrics implements GameMetricsMBean {
+
+    /**
+     * The JMX object name under which Main registers the metrics of the game.
+     */
+    public static final String OBJECT_NAME = "bguspl.set:type=GameMetrics";
+
+    private final Player[] players;
+
+    private final LongAdder claimsSubmitted = new LongAdder();
+
+    /**
+     * The time from a claim's arrival until its verdict.
+     */
+    private final LatencyHistogram verdictLatency = new LatencyHistogram();
+
+    /**
+     * Written by the dealer thread only.
+     */
+    private volatile long claimsPolled;
+    private volatile long legalVerdicts;
+    private volatile long illegalVerdicts;
+    private volatile long discardedClaims;
+    private volatile long timerLoopIterations;
+    private volatile long reshuffles;
+
+    /**
+     * The number of legal sets left, as last published by the dealer (-1 if not known). The MBean only reads this
+     * snapshot: counting the sets is left to the dealer thread, which owns the set counter.
+     */
+    private volatile int remainingSets = -1;
+
+    /**
+     * The last sample of the timer loop rate (guarded by this).
+     */
+    private long sampleNanos = System.nanoTime();
+    private long sampleIterations;
+
+    /**
+     * The class constructor.
+     *
+     * @param players - the players of the game (may be filled in after the construction).
+     */
+    public GameMetrics(Player[] players) {
+        this.players = players;
+    }
+
+    void claimSubmitted() {
+        claimsSubmitted.increment();
+    }
+
+    void claimPolled() {
+        claimsPolled++;
+    }
+
+    void claimDiscarded() {
+        discardedClaims++;
+    }
+
+    /**
+     * @param legal        - true iff the claim was a legal set.
+     * @param arrivalNanos - the time (System.nanoTime) the claim arrived.
+     */
+    void verdict(boolean legal, long arrivalNanos) {
+        verdictLatency.record(System.nanoTime() - arrivalNanos);
+        if (legal) legalVerdicts++;
+        else illegalVerdicts++;
+    }
+
+    void timerLoopIteration() {
+        timerLoopIterations++;
+    }
+
+    void reshuffled() {
+        reshuffles++;
+    }
+
+    /**
+     * @param sets - the number of legal sets left in the game (-1 if not known).
+     */
+    void remainingSets(int sets) {
+        remainingSets = sets;
+    }
+
+    LatencyHistogram verdictLatency() {
+        return verdictLatency;
+    }
+
+    @Override
+    public long getClaimsSubmitted() {
+        return claimsSubmitted.sum();
+    }
+
+    @Override
+    public long getClaimsVerified() {
+        return legalVerdicts + illegalVerdicts;
+    }
+
+    @Override
+    public long getLegalVerdicts() {
+        return legalVerdicts;
+    }
+
+    @Override
+    public long getIllegalVerdicts() {
+        return illegalVerdicts;
+    }
+
+    @Override
+    public long getDiscardedClaims() {
+        return discardedClaims;
+    }
+
+    @Override
+    public long getClaimQueueDepth() {
+        long polled = claimsPolled; // read first: a claim is submitted before it is polled
+        return Math.max(claimsSubmitted.sum() - polled, 0);
+    }
+
+    @Override
+    public double getVerdictLatencyMeanMicros() {
+        return verdictLatency.mean() / 1000.0;
+    }
+
+    @Override
+    public long getVerdictLatencyP50Micros() {
+        return TimeUnit.NANOSECONDS.toMicros(verdictLatency.percentile(50));
+    }
+
+    @Override
+    public long getVerdictLatencyP99Micros() {
+        return TimeUnit.NANOSECONDS.toMicros(verdictLatency.percentile(99));
+    }
+
+    @Override
+    public long getVerdictLatencyMaxMicros() {
+        return TimeUnit.NANOSECONDS.toMicros(verdictLatency.max());
+    }
+
+    @Override
+    public long getTimerLoopIterations() {
+        return timerLoopIterations;
+    }
+
+    @Override
+    public synchronized double getTimerLoopIterationsPerSecond() {
+        long now = System.nanoTime();
+        long iterations = timerLoopIterations;
+        double rate = (iterations - sampleIterations) * 1e9 / Math.max(now - sampleNanos, 1);
+        sampleNanos = now;
+        sampleIterations = iterations;
+        return rate;
+    }
+
+    @Override
+    public long getReshuffles() {
+        return reshuffles;
+    }
+
+    @Override
+    public int getRemainingSets() {
+        return remainingSets;
+    }
+
+    @Override
+    public int[] getActionQueueOccupancy() {
+        int[] occupancy = new int[players.length];
+        for (int i = 0; i < players.length; i++)
+            occupancy[i] = players[i] == null ? 0 : players[i].pendingActions();
+        return occupancy;
+    }
+
+    @Override
+    public long[] getPlayerIdleNanos() {
+        long[] nanos = new long[players.length];
+        for (int i = 0; i < players.length; i++)
+            nanos[i] = players[i] == null ? 0 : players[i].getIdleNanos();
+        return nanos;
+    }
+
+    @Override
+    public long[] getPlayerBusyNanos() {
+        long[] nanos = new long[players.length];
+        for (int i = 0; i < players.length; i++)
+            nanos[i] = players[i] == null ? 0 : players[i].getBusyNanos();
+        return nanos;
+    }
+}
@@ -0,0 +1,76 @@
+package bguspl.set.ex;
+
+/**
+ * The live game engine metrics exposed over JMX (see GameMetrics).
+ * Times are in microseconds unless the name says otherwise.
+ */
+public interface GameMetricsMBean {
+
+    /**
+     * @return - the number of claims the players submitted to the dealer.
+     */
+    long getClaimsSubmitted();
+
+    /**
+     * @return - the number of claims the dealer checked (legal or illegal, not counting discarded claims).
+     */
+    long getClaimsVerified();
+
+    long getLegalVerdicts();
+
+    long getIllegalVerdicts();
+
+    /**
+     * @return - the number of claims discarded because the table changed before the dealer checked them.
+     */
+    long getDiscardedClaims();
+
+    /**
+     * @return - the number of claims waiting in the dealer's queue.
+     */
+    long getClaimQueueDepth();
+
+    double getVerdictLatencyMeanMicros();
+
+    long getVerdictLatencyP50Micros();
+
+    long getVerdictLatencyP99Micros();
+
+    long getVerdictLatencyMaxMicros();
+
+    /**
+     * @return - the number of iterations of the dealer's timer loop.
+     */
+    long getTimerLoopIterations();
+
+    /**
+     * @return - the timer loop iterations per second since the previous call (or since the game started).
+     */
+    double getTimerLoopIterationsPerSecond();
+
+    /**
+     * @return - the number of times the cards were returned to the deck and dealt again.
+     */
+    long getReshuffles();
+
+    /**
+     * @return - the number of legal sets that can still be formed from the deck and the cards on the table, as of the
+     * dealer's last change (-1 if not known: the count is only kept up to date when a set has 3 cards).
+     */
+    int getRemainingSets();
+
+    /**
+     * @return - the number of key presses waiting in each player's action queue.
+     */
+    int[] getActionQueueOccupancy();
+
+    /**
+     * @return - the time (in nanoseconds) each player thread was blocked.
+     */
+    long[] getPlayerIdleNanos();
+
+    /**
+     * @return - the time (in nanoseconds) each player thread spent handling key presses.
+     */
+    long[] getPlayerBusyNanos();
+}
@@ -1,12 +1,13 @@
 package bguspl.set.ex;
 
 import bguspl.set.Env;
+import bguspl.set.ThreadLogger;
 
-import java.util.LinkedList;
-import java.util.Queue;
-import java.util.Random;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * This class manages the players' threads and data
@@ -34,7 +35,7 @@ public class Player implements Runnable {
     /**
      * The thread representing the current player.
      */
-    protected Thread playerThread;
+    protected volatile Thread playerThread;
 
     /**
      * The thread of the AI (computer) player (an additional thread used to generate key presses).
@@ -62,14 +63,39 @@ public class Player implements Runnable {
     private BlockingQueue<Integer> actionQueue;
 
     /**
-     * Number of tokens the player placed on board
+     * its a try
      */
-    private int placedTokens;
+    private Dealer dealer;
 
     /**
-     * its a try
+     * Guards the claim verdict hand-off between the dealer and the player thread (a lock rather than the player's
+     * monitor, so that waiting does not pin a carrier thread when players run on virtual threads).
      */
-    private Dealer dealer;
+    private final ReentrantLock verdictLock = new ReentrantLock();
+    private final Condition verdictArrived = verdictLock.newCondition();
+
+    /**
+     * True iff the player submitted a claim and did not get the dealer's verdict yet (guarded by verdictLock).
+     */
+    private boolean awaitingVerdict;
+
+    /**
+     * The time (in epoch millis) until which the player is frozen (guarded by verdictLock).
+     */
+    private long freezeUntil;
+
+    /**
+     * The number of key presses of the AI that the player thread did not handle (or drop) yet (guarded by
+     * verdictLock). The AI waits for its presses to be handled before it looks at the table again.
+     */
+    private int pendingPresses;
+    private final Condition pressesHandled = verdictLock.newCondition();
+
+    /**
+     * Time (in nanoseconds) the player thread spent blocked / handling key presses (written by the player thread).
+     */
+    private volatile long idleNanos;
+    private volatile long busyNanos;
 
     //protected boolean locked;
     /**
@@ -87,7 +113,6 @@ public class Player implements Runnable {
         this.id = id;
         this.human = human;
         this.actionQueue = new ArrayBlockingQueue<>(3);
-        this.placedTokens = 0;
         // its a try
         this.dealer = dealer;
         //this.locked = false;
@@ -99,22 +124,23 @@ public class Player implements Runnable {
     @Override
     public void run() {
         playerThread = Thread.currentThread();
-        System.out.printf("Info: Thread %s starting.%n", Thread.currentThread().getName());
         if (!human) createArtificialIntelligence();
         while (!terminate) {
-            // TODO implement main player loop
-            //added
-            if(!actionQueue.isEmpty())
-                act(actionQueue.remove());
-                //end
-            else{
-                synchronized (this) {
-                    notifyAll();
-                }
-            }
+            try {
+                long waitStart = System.nanoTime();
+                int slot = actionQueue.take();
+                long actStart = System.nanoTime();
+                idleNanos += actStart - waitStart;
+                long idleBefore = idleNanos;
+                act(slot);
+                busyNanos += System.nanoTime() - actStart - (idleNanos - idleBefore);
+                if (!human) pressesHandled(1);
+            } catch (InterruptedException ignored) {} // woken up for termination
+        }
+        if (!human) {
+            aiThread.interrupt();
+            try { aiThread.join(); } catch (InterruptedException ignored) {}
         }
-        if (!human) try { aiThread.join(); } catch (InterruptedException ignored) {}
-        System.out.printf("Info: Thread %s terminated.%n", Thread.currentThread().getName());
     }
 
     /**
@@ -122,45 +148,70 @@ public class Player implements Runnable {
      * key presses. If the queue of key presses is full, the thread waits until it is not full.
      */
     private void createArtificialIntelligence() {
-        // note: this is a very very smart AI (!)
-        aiThread = new Thread(() -> {
-            System.out.printf("Info: Thread %s starting.%n", Thread.currentThread().getName());
+        ComputerStrategy strategy = ComputerStrategy.create(env, table, id);
+        aiThread = ThreadLogger.newThread(env, () -> {
             while (!terminate) {
-                // TODO implement player key press simulator
-                Random rand = new Random();
-                keyPressed(rand.nextInt(12));
                 try {
-                    synchronized (this) {
-                        wait();
+                    int[] presses = strategy.nextPresses();
+                    verdictLock.lock();
+                    try {
+                        pendingPresses += presses.length;
+                    } finally {
+                        verdictLock.unlock();
                     }
-                } catch (InterruptedException ignored) {
-                }
+                    for (int slot : presses)
+                        actionQueue.put(slot);
+                    awaitPressesHandled();
+                } catch (InterruptedException ignored) {} // woken up for termination
             }
-            System.out.printf("Info: Thread %s terminated.%n", Thread.currentThread().getName());
         }, "computer-" + id);
         aiThread.start();
     }
 
+    /**
+     * Waits until the player thread handled (or dropped) all the key presses of the AI, including the claim they
+     * made, if any.
+     */
+    private void awaitPressesHandled() throws InterruptedException {
+        verdictLock.lock();
+        try {
+            while (pendingPresses > 0 && !terminate)
+                pressesHandled.await();
+        } finally {
+            verdictLock.unlock();
+        }
+    }
+
+    /**
+     * @param presses - the number of key presses of the AI that the player thread handled or dropped.
+     */
+    private void pressesHandled(int presses) {
+        verdictLock.lock();
+        try {
+            pendingPresses -= presses;
+            pressesHandled.signalAll();
+        } finally {
+            verdictLock.unlock();
+        }
+    }
+
     /**
      * Called when the game should be terminated due to an external event.
      */
     public void terminate() {
-        // TODO implement
+        terminate = true;
+        Thread thread = playerThread;
+        if (thread != null) thread.interrupt();
     }
 
     /**
-     * synchronize!
      * This method is called when a key is pressed.
+     * Key presses are ignored while the queue of actions is full (e.g. while the player is frozen).
      *
      * @param slot - the slot corresponding to the key pressed.
      */
-    public synchronized void keyPressed(int slot) {
-        // TODO implement
-        actionQueue.add(slot);
-        try {
-            Thread.sleep(50);
-        }
-        catch (InterruptedException ignored){}
+    public void keyPressed(int slot) {
+        actionQueue.offer(slot);
     }
 
     /**
@@ -170,12 +221,9 @@ public class Player implements Runnable {
      * @post - the player's score is updated in the ui.
      */
     public void point() {
-        // TODO implement
         int ignored = table.countCards(); // this part is just for demonstration in the unit tests
         env.ui.setScore(id, ++score);
-        synchronized (this) {
-            notifyAll();
-        }
+        verdict(env.config.pointFreezeMillis);
     }
 
     /**
@@ -184,79 +232,102 @@ public class Player implements Runnable {
     public void penalty() {
         int ignored = table.countCards(); // this part is just for demonstration in the unit tests
         env.ui.setScore(id, --score);
-        synchronized (this) {
-            notifyAll();
-        }
+        verdict(env.config.penaltyFreezeMillis);
     }
 
-    public int getScore() {
-        return score;
+    /**
+     * Called by the dealer when the player's claim no longer matches the table (so it was neither rewarded nor
+     * penalized).
+     */
+    public void claimDiscarded() {
+        verdict(0);
     }
 
-    /*public void act(int slot) {
-        //synchronized(table)
-        if (placedTokens < 3) {
-            if (!table.isPlayerTokenOnSlot(id, slot)) {
-                table.placeToken(id, slot);
-                placedTokens++;
-                if (placedTokens == 3) {
-                    try {
-                        dealer.semaphore.acquire();
-                        dealer.addToCheckList(this.id);
-                    }
-                    catch (InterruptedException ignored) { }
-                }
-            }
-            else {
-                table.removeToken(id, slot);
-                decreasePlacedTokens();
-            }
+    /**
+     * Releases the player thread waiting for the dealer's verdict.
+     *
+     * @param freezeMillis - the time the player should be frozen for.
+     */
+    private void verdict(long freezeMillis) {
+        verdictLock.lock();
+        try {
+            freezeUntil = System.currentTimeMillis() + freezeMillis;
+            awaitingVerdict = false;
+            verdictArrived.signalAll();
+        } finally {
+            verdictLock.unlock();
         }
-    }*/
-    public void act(int slot){
-        if(placedTokens < 3) {
-            if (!table.isPlayerTokenOnSlot(id, slot)) {
-                table.placeToken(id, slot);
-                placedTokens++;
-                if (placedTokens == 3) {
-                    try {
-                        synchronized (this){
-                        dealer.semaphore.acquire();
-                        dealer.addToCheckList(this.id);
-                        dealer.semaphore.release();
-                        wait();
-                        }
-                        /*synchronized (dealer) {
-                            locked = true;
-                            System.out.println("I " + id + " was locked for the 1st time");
-                            dealer.wait();
-                            while (locked){
-                                System.out.println("I " + id + " was locked again");
-                                dealer.wait();
-                            }
-                            System.out.println("I " + id + " am Free");
-                        } */
-                    }
-                    catch (InterruptedException ignored){};
-                }
-            }
-            else {
-                table.removeToken(id, slot);
-                decreasePlacedTokens();
+    }
+
+    /**
+     * Submits the player's claim to the dealer and blocks until the dealer's verdict, then stays frozen for the
+     * time set by the verdict (key presses made meanwhile are discarded).
+     *
+     * @param cards - the cards under the player's tokens.
+     */
+    private void claimAndWait(int[] cards) throws InterruptedException {
+        long waitStart = System.nanoTime();
+        verdictLock.lock();
+        try {
+            awaitingVerdict = true;
+            env.journal.claim(id, cards);
+            dealer.addToCheckList(this.id, cards);
+            while (awaitingVerdict && !terminate)
+                verdictArrived.await();
+
+            long frozenMillis;
+            while (!terminate && (frozenMillis = freezeUntil - System.currentTimeMillis()) > 0) {
+                env.ui.setFreeze(id, frozenMillis);
+                // wake up when the displayed (whole) seconds change
+                verdictArrived.await(frozenMillis % 1000 == 0 ? 1000 : frozenMillis % 1000, TimeUnit.MILLISECONDS);
             }
-            /*synchronized (this) {
-                if (actionQueue.size() < 3) {
-                    notifyAll();
-                }*/
+        } finally {
+            verdictLock.unlock();
+            idleNanos += System.nanoTime() - waitStart;
         }
+        env.ui.setFreeze(id, 0);
+        int dropped = 0;
+        while (actionQueue.poll() != null)
+            dropped++;
+        if (!human) pressesHandled(dropped);
     }
 
+    /**
+     * @return - the total time (in nanoseconds) the player thread was blocked: waiting for a key press, for a
+     * verdict, or frozen.
+     */
+    public long getIdleNanos() {
+        return idleNanos;
+    }
 
-    public void decreasePlacedTokens() {
-        placedTokens--;
+    /**
+     * @return - the total time (in nanoseconds) the player thread spent handling key presses.
+     */
+    public long getBusyNanos() {
+        return busyNanos;
     }
 
-    public void removeAllTokens() {
-        placedTokens = 0;
+    /**
+     * @return - the number of key presses waiting in the player's action queue.
+     */
+    public int pendingActions() {
+        return actionQueue.size();
+    }
+
+    public int getScore() {
+        return score;
+    }
+
+    public void act(int slot) throws InterruptedException {
+        if (!table.hasCard(slot))
+            return;
+        if (table.removeToken(id, slot))
+            return;
+        if (table.placeToken(id, slot) && table.countTokens(id) == Table.TOKENS_PER_PLAYER) {
+            int[] cards = new int[Table.TOKENS_PER_PLAYER];
+            if (table.getPlayerTokenedCards(id, cards) < cards.length)
+                return; // one of the cards is being replaced, the dealer will remove its tokens
+            claimAndWait(cards);
+        }
     }
 }
@@ -0,0 +1,29 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Presses random slots of the table as fast as the player takes them.
+ */
+public class RandomKeysStrategy implements ComputerStrategy {
+
+    private final int[] press = new int[1];
+    private final int tableSize;
+
+    /**
+     * The class constructor.
+     *
+     * @param env - the game environment object.
+     */
+    public RandomKeysStrategy(Env env) {
+        this.tableSize = env.config.tableSize;
+    }
+
+    @Override
+    public int[] nextPresses() {
+        press[0] = ThreadLocalRandom.current().nextInt(tableSize);
+        return press;
+    }
+}
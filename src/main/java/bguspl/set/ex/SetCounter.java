@@ -0,0 +1,153 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class keeps track of how many legal sets can still be formed from the cards in play (the dealer's deck plus
+ * the cards on the table).
+ * With 3 cards per set the count is updated incrementally when a card enters or leaves play, otherwise it is
+ * recomputed lazily (and only when asked for) after a change.
+ *
+ * @inv liveCards[livePosition[c]] == c iff c is in play
+ * @inv sets >= 0 || !incremental
+ */
+public class SetCounter {
+
+    /**
+     * The game environment object.
+     */
+    private final Env env;
+
+    /**
+     * True iff the count is maintained on every change (i.e. a pair of cards determines the third card of a set).
+     */
+    private final boolean incremental;
+
+    /**
+     * The cards in play (the first liveCount entries) and the position of each card in it (-1 if not in play).
+     */
+    private final int[] liveCards;
+    private final int[] livePosition;
+    private int liveCount;
+
+    /**
+     * The number of legal sets among the cards in play (-1 if unknown).
+     */
+    private volatile int sets;
+
+    /**
+     * Whether any set exists among the cards in play, and whether that answer is outdated (non incremental mode).
+     */
+    private boolean anySets;
+    private boolean anySetsOutdated;
+
+    /**
+     * The class constructor. Initially, no cards are in play.
+     *
+     * @param env - the game environment object.
+     */
+    public SetCounter(Env env) {
+        this.env = env;
+        this.incremental = env.config.deckSize > 0 && env.util.completeSet(0, 0) != -1;
+        this.liveCards = new int[env.config.deckSize];
+        this.livePosition = new int[env.config.deckSize];
+        Arrays.fill(livePosition, -1);
+        this.sets = incremental ? 0 : -1;
+        this.anySetsOutdated = true;
+    }
+
+    /**
+     * Puts a card in play.
+     *
+     * @param card - the card id.
+     *
+     * @post - count() includes the sets the card forms with the other cards in play.
+     */
+    public void add(int card) {
+        if (livePosition[card] != -1) return;
+        if (incremental) sets += setsWith(card);
+        else invalidate();
+        livePosition[card] = liveCount;
+        liveCards[liveCount++] = card;
+    }
+
+    /**
+     * Takes a card out of play (e.g. after it was removed from the table as part of a legal set).
+     *
+     * @param card - the card id.
+     *
+     * @post - count() does not include any set that contains the card.
+     */
+    public void remove(int card) {
+        int position = livePosition[card];
+        if (position == -1) return;
+        int last = liveCards[--liveCount];
+        liveCards[position] = last;
+        livePosition[last] = position;
+        livePosition[card] = -1;
+        if (incremental) sets -= setsWith(card);
+        else invalidate();
+    }
+
+    /**
+     * @param card - a card id which is not in play.
+     * @return - the number of sets the card forms with the cards in play.
+     */
+    private int setsWith(int card) {
+        int pairs = 0;
+        for (int i = 0; i < liveCount; ++i) {
+            int third = env.util.completeSet(card, liveCards[i]);
+            if (livePosition[third] != -1) pairs++;
+        }
+        return pairs / 2; // each set is found once from each of its other two cards
+    }
+
+    private void invalidate() {
+        sets = -1;
+        anySetsOutdated = true;
+    }
+
+    private List<Integer> liveCards() {
+        List<Integer> cards = new ArrayList<>(liveCount);
+        for (int i = 0; i < liveCount; ++i)
+            cards.add(liveCards[i]);
+        return cards;
+    }
+
+    /**
+     * @return - true iff at least one legal set can be formed from the cards in play.
+     */
+    public boolean hasSets() {
+        if (incremental) return sets > 0;
+        if (anySetsOutdated) {
+            anySets = env.util.streamSets(liveCards()).findAny().isPresent();
+            anySetsOutdated = false;
+        }
+        return anySets;
+    }
+
+    /**
+     * Does not count anything, so it may be called from any thread.
+     *
+     * @return - the number of legal sets that can be formed from the cards in play, or -1 if it is not known (in non
+     * incremental mode, when the sets were not recounted since the last change).
+     */
+    public int knownCount() {
+        return sets;
+    }
+
+    /**
+     * Note: in non incremental mode this recounts the sets after a change, so it should only be called from the
+     * thread that updates the counter.
+     *
+     * @return - the number of legal sets that can be formed from the cards in play.
+     */
+    public int count() {
+        if (sets == -1) sets = (int) env.util.streamSets(liveCards()).count();
+        return sets;
+    }
+}
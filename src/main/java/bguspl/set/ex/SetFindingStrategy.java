@@ -0,0 +1,139 @@
+package bguspl.set.ex;
+
+import bguspl.set.Env;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Plays like a person: looks at the table for a while, then places its tokens on a set.
+ * Each claim is a legal set found on the table with the configured chance, and otherwise random cards that are not
+ * a set, so the dealer sees a controlled mix of points and penalties. The time before each claim is the configured
+ * minimum plus an exponentially distributed delay, so claims arrive at a controlled mean rate.
+ */
+public class SetFindingStrategy implements ComputerStrategy {
+
+    private final Env env;
+    private final Table table;
+    private final int player;
+    private final SplittableRandom random = new SplittableRandom();
+
+    /**
+     * Buffers for the cards on the table (and their slots) and the player's tokens.
+     */
+    private final List<Integer> cards;
+    private final int[] slots;
+    private final int[] tokens = new int[Table.TOKENS_PER_PLAYER];
+
+    /**
+     * The class constructor.
+     *
+     * @param env    - the game environment object.
+     * @param table  - the table the player plays on.
+     * @param player - the id of the player.
+     */
+    public SetFindingStrategy(Env env, Table table, int player) {
+        this.env = env;
+        this.table = table;
+        this.player = player;
+        this.cards = new ArrayList<>(env.config.tableSize);
+        this.slots = new int[env.config.tableSize];
+    }
+
+    /**
+     * @return - the time (in milliseconds) to wait before the next claim.
+     */
+    long reactionMillis() {
+        long min = env.config.computerReactionMinMillis;
+        long extra = Math.max(env.config.computerReactionMeanMillis - min, 0);
+        return min + (long) (-Math.log(1 - random.nextDouble()) * extra);
+    }
+
+    @Override
+    public int[] nextPresses() throws InterruptedException {
+        Thread.sleep(reactionMillis());
+
+        cards.clear();
+        for (int slot = 0; slot < slots.length; slot++) {
+            int card = table.cardAt(slot);
+            if (card != Table.EMPTY) {
+                slots[cards.size()] = slot;
+                cards.add(card);
+            }
+        }
+        if (cards.size() < Table.TOKENS_PER_PLAYER)
+            return new int[0];
+
+        // when the player means to claim a set but there is none on the table, it keeps looking
+        int[] claim = random.nextDouble() < env.config.computerSuccessRate ? findSet() : findNonSet();
+        return claim != null ? presses(claim) : new int[0];
+    }
+
+    /**
+     * @return - the indices (in cards) of a random legal set on the table, or null if there is none.
+     */
+    private int[] findSet() {
+        List<int[]> sets = env.util.findSets(cards, Integer.MAX_VALUE);
+        if (sets.isEmpty())
+            return null;
+        int[] set = sets.get(random.nextInt(sets.size()));
+        if (set.length != Table.TOKENS_PER_PLAYER)
+            return null;
+        int[] claim = new int[set.length];
+        for (int i = 0; i < set.length; i++)
+            claim[i] = cards.indexOf(set[i]);
+        return claim;
+    }
+
+    /**
+     * @return - the indices (in cards) of random cards, which are not a legal set unless the table has little else.
+     */
+    private int[] findNonSet() {
+        int[] claim = new int[Table.TOKENS_PER_PLAYER];
+        int[] candidate = new int[claim.length];
+        for (int attempt = 0; attempt < 20; attempt++) {
+            for (int i = 0; i < claim.length; i++) {
+                int index;
+                do {
+                    index = random.nextInt(cards.size());
+                } while (contains(claim, i, index));
+                claim[i] = index;
+                candidate[i] = cards.get(index);
+            }
+            if (!env.util.testSet(candidate))
+                break;
+        }
+        return claim;
+    }
+
+    private static boolean contains(int[] array, int length, int value) {
+        for (int i = 0; i < length; i++)
+            if (array[i] == value)
+                return true;
+        return false;
+    }
+
+    /**
+     * @param claim - the indices (in cards) of the cards to claim.
+     * @return - the key presses that move the player's tokens to the claimed cards: first removing the tokens on
+     * other cards, then placing the missing ones.
+     */
+    private int[] presses(int[] claim) {
+        int tokenCount = table.getPlayerTokenedSlots(player, tokens);
+        int[] target = new int[claim.length];
+        for (int i = 0; i < claim.length; i++)
+            target[i] = slots[claim[i]];
+
+        int[] presses = new int[tokenCount + target.length];
+        int count = 0;
+        for (int i = 0; i < tokenCount; i++)
+            if (!contains(target, target.length, tokens[i]))
+                presses[count++] = tokens[i];
+        for (int slot : target)
+            if (!contains(tokens, tokenCount, slot))
+                presses[count++] = slot;
+        return Arrays.copyOf(presses, count);
+    }
+}
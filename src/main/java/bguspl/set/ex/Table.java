@@ -3,15 +3,17 @@ package bguspl.set.ex;
 import bguspl.set.Env;
 
 import java.util.Arrays;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.Objects;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.stream.Collectors;
 
 /**
  * This class contains the data that is visible to the player.
  *
- * @inv slotToCard[x] == y iff cardToSlot[y] == x
+ * @inv slotToCard[x] == y iff cardToSlot.get(y) == x (for y != EMPTY)
+ * @inv bit x of occupied is set iff slotToCard[x] != EMPTY, and cardCount is the number of bits set
+ * @inv tokens are only on slots with a card (a token placed while its card is removed is taken back)
  */
 public class Table {
 
@@ -21,35 +23,68 @@ public class Table {
     private final Env env;
 
     /**
-     * Mapping between a slot and the card placed in it (null if none).
+     * The value of an empty slot in slotToCard (and of a card that is not on the table in cardToSlot).
      */
-    protected final Integer[] slotToCard; // card per slot (if any)
+    public static final int EMPTY = CardIndex.NONE;
 
     /**
-     * Mapping between a card and the slot it is in (null if none).
+     * Mapping between a slot and the card placed in it (EMPTY if none).
      */
-    protected final Integer[] cardToSlot; // slot per card (if any)
+    protected final int[] slotToCard; // card per slot (if any)
 
+    /**
+     * Mapping between a card and the slot it is in (EMPTY if none).
+     */
+    protected final CardIndex cardToSlot; // slot per card (if any)
+
+
+    /**
+     * The number of tokens each player can place (the size of a set).
+     */
+    public static final int TOKENS_PER_PLAYER = 3;
+
+    /**
+     * The tokens of the players on the slots.
+     */
+    protected final TokenBoard tokens;
+
+    /**
+     * A bit per slot, set iff there is a card in the slot (only used by the dealer thread).
+     */
+    private final long[] occupied;
+
+    /**
+     * The first word of occupied that may have a clear bit (all the words before it are full).
+     */
+    private int firstFreeWord;
+
+    /**
+     * The number of cards on the table.
+     */
+    private volatile int cardCount;
 
     /**
-     * Mapping tokens per player and slot
+     * Volatile access to slotToCard, so that player threads see the cards placed and removed by the dealer.
      */
-    protected boolean [][] tokensPTS;
+    private static final VarHandle SLOTS = MethodHandles.arrayElementVarHandle(int[].class);
 
     /**
      *
      * Constructor for testing.
      *
      * @param env        - the game environment objects.
-     * @param slotToCard - mapping between a slot and the card placed in it (null if none).
-     * @param cardToSlot - mapping between a card and the slot it is in (null if none).
+     * @param slotToCard - mapping between a slot and the card placed in it (EMPTY if none).
+     * @param cardToSlot - mapping between a card and the slot it is in (EMPTY if none).
      */
-    public Table(Env env, Integer[] slotToCard, Integer[] cardToSlot) {
+    public Table(Env env, int[] slotToCard, CardIndex cardToSlot) {
         this.env = env;
         this.slotToCard = slotToCard;
         this.cardToSlot = cardToSlot;
-        this.tokensPTS = new boolean[env.config.players][env.config.tableSize];
-        //connects dealer to player
+        this.tokens = new TokenBoard(env.config.players, slotToCard.length, TOKENS_PER_PLAYER);
+        this.occupied = new long[(slotToCard.length + Long.SIZE - 1) / Long.SIZE];
+        for (int slot = 0; slot < slotToCard.length; ++slot)
+            if (slotToCard[slot] != EMPTY)
+                occupy(slot);
     }
 
     /**
@@ -59,19 +94,25 @@ public class Table {
      */
     public Table(Env env) {
 
-        this(env, new Integer[env.config.tableSize], new Integer[env.config.deckSize]);
+        this(env, emptySlots(env.config.tableSize), new CardIndex(env.config.deckSize, env.config.tableSize));
+    }
+
+    private static int[] emptySlots(int tableSize) {
+        int[] slots = new int[tableSize];
+        Arrays.fill(slots, EMPTY);
+        return slots;
     }
 
     /**
      * This method prints all possible legal sets of cards that are currently on the table.
      */
     public void hints() {
-        List<Integer> deck = Arrays.stream(slotToCard).filter(Objects::nonNull).collect(Collectors.toList());
-        env.util.findSets(deck, Integer.MAX_VALUE).forEach(set -> {
+        List<Integer> deck = Arrays.stream(slotToCard).filter(card -> card != EMPTY).boxed().collect(Collectors.toList());
+        env.util.streamSets(deck).forEach(set -> {
             StringBuilder sb = new StringBuilder().append("Hint: Set found: ");
-            List<Integer> slots = Arrays.stream(set).mapToObj(card -> cardToSlot[card]).sorted().collect(Collectors.toList());
+            int[] slots = Arrays.stream(set).map(cardToSlot::get).sorted().toArray();
             int[][] features = env.util.cardsToFeatures(set);
-            System.out.println(sb.append("slots: ").append(slots).append(" features: ").append(Arrays.deepToString(features)));
+            System.out.println(sb.append("slots: ").append(Arrays.toString(slots)).append(" features: ").append(Arrays.deepToString(features)));
         });
     }
 
@@ -81,16 +122,22 @@ public class Table {
      * @return - the number of cards on the table.
      */
     public int countCards() {
-        int cards = 0;
-        for (Integer card : slotToCard)
-            if (card != null)
-                ++cards;
-        return cards;
+        return cardCount;
+    }
+
+    private void occupy(int slot) {
+        occupied[slot / Long.SIZE] |= 1L << (slot % Long.SIZE);
+        cardCount++;
+    }
+
+    private void vacate(int slot) {
+        occupied[slot / Long.SIZE] &= ~(1L << (slot % Long.SIZE));
+        firstFreeWord = Math.min(firstFreeWord, slot / Long.SIZE);
+        cardCount--;
     }
 
     /**
-     * synchronize(A)
-     * Places a card on the table in a grid slot.
+     * Places a card on the table in a grid slot (called by the dealer thread only).
      * @param card - the card id to place in the slot.
      * @param slot - the slot in which the card should be placed.
      *
@@ -101,18 +148,19 @@ public class Table {
             Thread.sleep(env.config.tableDelayMillis);
         } catch (InterruptedException ignored) {}
 
-        cardToSlot[card] = slot;
-        slotToCard[slot] = card;
-
-        // TODO implement
+        if (slotToCard[slot] != EMPTY)
+            takeCard(slot);
+        cardToSlot.put(card, slot);
+        SLOTS.setVolatile(slotToCard, slot, card);
+        occupy(slot);
+        env.journal.cardPlaced(slot, card);
         env.ui.placeCard(card, slot);
     }
 
     /**
-     * synchronize(A)
-     * todo: env.ui.removeCard (deletes from the drawing)
-     * todo: handle all other tokens that are placed on this slot
-     * Removes a card from a grid slot on the table.
+     * Removes a card from a grid slot on the table (called by the dealer thread only).
+     * The tokens on the slot are not removed: the dealer removes them after the card (see removeTokens), so that a
+     * token placed in between is taken back by placeToken or removed by the dealer.
      * @param slot - the slot from which to remove the card.
      */
     public void removeCard(int slot) {
@@ -120,37 +168,179 @@ public class Table {
             Thread.sleep(env.config.tableDelayMillis);
         } catch (InterruptedException ignored) {}
 
-        // TODO implement
-        int cardToRemove = slotToCard[slot];
-        slotToCard[slot] = null;
-        cardToSlot[cardToRemove] = null;
+        takeCard(slot);
         env.ui.removeCard(slot);
     }
 
     /**
-     * synchronize!!
+     * Places cards on the table, with a single delay and a single ui update for all of them.
+     * @param cards - the card ids to place.
+     * @param slots - the slots in which the cards should be placed (cards[i] is placed in slots[i]).
+     *
+     * @post - each card placed is on the table, in its assigned slot.
+     */
+    public void placeCards(int[] cards, int[] slots) {
+        placeCards(cards, slots, slots.length);
+    }
+
+    /**
+     * Places cards on the table, with a single delay and a single ui update for all of them (does not allocate).
+     * @param cards - the card ids to place.
+     * @param slots - the slots in which the cards should be placed (cards[i] is placed in slots[i]).
+     * @param count - the number of cards to place (the first count entries of cards and slots).
+     *
+     * @post - each card placed is on the table, in its assigned slot.
+     */
+    public void placeCards(int[] cards, int[] slots, int count) {
+        if (count == 0) return;
+        try {
+            Thread.sleep(env.config.tableDelayMillis);
+        } catch (InterruptedException ignored) {}
+
+        for (int i = 0; i < count; i++) {
+            if (slotToCard[slots[i]] != EMPTY)
+                takeCard(slots[i]);
+            cardToSlot.put(cards[i], slots[i]);
+            SLOTS.setVolatile(slotToCard, slots[i], cards[i]);
+            occupy(slots[i]);
+            env.journal.cardPlaced(slots[i], cards[i]);
+        }
+        env.ui.placeCards(cards, slots, count);
+    }
+
+    /**
+     * Removes cards from the table, with a single delay and a single ui update for all of them.
+     * The tokens on the slots are not removed (see removeTokens).
+     * @param slots - the slots from which to remove the cards.
+     * @return - the cards removed (EMPTY for a slot that had no card).
+     */
+    public int[] removeCards(int[] slots) {
+        int[] cards = new int[slots.length];
+        removeCards(slots, slots.length, cards);
+        return cards;
+    }
+
+    /**
+     * Removes cards from the table, with a single delay and a single ui update for all of them (does not allocate).
+     * The tokens on the slots are not removed (see removeTokens).
+     * @param slots   - the slots from which to remove the cards.
+     * @param count   - the number of slots (the first count entries of slots).
+     * @param removed - the array to fill with the cards removed (EMPTY for a slot that had no card).
+     */
+    public void removeCards(int[] slots, int count, int[] removed) {
+        if (count == 0) return;
+        try {
+            Thread.sleep(env.config.tableDelayMillis);
+        } catch (InterruptedException ignored) {}
+
+        for (int i = 0; i < count; i++)
+            removed[i] = takeCard(slots[i]);
+        env.ui.removeCards(slots, count);
+    }
+
+    /**
+     * @return - the slots without a card, in ascending order.
+     */
+    public int[] emptySlots() {
+        int[] slots = new int[slotToCard.length - cardCount];
+        slotsWhere(false, slots);
+        return slots;
+    }
+
+    /**
+     * @param slots - the array to fill with the slots without a card, in ascending order (up to its length).
+     * @return - the number of slots written.
+     */
+    public int emptySlots(int[] slots) {
+        return slotsWhere(false, slots);
+    }
+
+    /**
+     * @return - the slots with a card, in ascending order.
+     */
+    public int[] occupiedSlots() {
+        int[] slots = new int[cardCount];
+        slotsWhere(true, slots);
+        return slots;
+    }
+
+    /**
+     * @param slots - the array to fill with the slots with a card, in ascending order (up to its length).
+     * @return - the number of slots written.
+     */
+    public int occupiedSlots(int[] slots) {
+        return slotsWhere(true, slots);
+    }
+
+    private int slotsWhere(boolean withCard, int[] slots) {
+        int found = 0;
+        for (int w = 0; w < occupied.length && found < slots.length; w++) {
+            for (long bits = withCard ? occupied[w] : ~occupied[w]; bits != 0 && found < slots.length; bits &= bits - 1) {
+                int slot = w * Long.SIZE + Long.numberOfTrailingZeros(bits);
+                if (slot >= slotToCard.length) return found; // the bits after the last slot are always free
+                slots[found++] = slot;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Removes a card from a grid slot, without any delay and without updating the ui.
+     *
+     * @param slot - the slot from which to remove the card.
+     * @return - the card removed (EMPTY if there was none).
+     */
+    int takeCard(int slot) {
+        int card = slotToCard[slot];
+        if (card == EMPTY)
+            return EMPTY;
+        SLOTS.setVolatile(slotToCard, slot, EMPTY);
+        cardToSlot.remove(card);
+        vacate(slot);
+        env.journal.cardRemoved(slot, card);
+        return card;
+    }
+
+    /**
+     * @param slot - the slot.
+     * @return - the card in the slot (EMPTY if none), as last written by the dealer thread.
+     */
+    public int cardAt(int slot) {
+        return (int) SLOTS.getVolatile(slotToCard, slot);
+    }
+
+    /**
      * Places a player token on a grid slot.
      * @param player - the player the token belongs to.
      * @param slot   - the slot on which to place the token.
+     * @return       - true iff the token was placed (i.e. there is a card in the slot and no token of the player on it).
      */
-    public void placeToken(int player, int slot) {
-        // TODO implement
-        tokensPTS[player][slot] = true;
+    public boolean placeToken(int player, int slot) {
+        int card = cardAt(slot);
+        if (card == EMPTY || !tokens.place(player, slot))
+            return false;
+        env.journal.tokenPlaced(player, slot);
         env.ui.placeToken(player, slot);
+        // the dealer removes a card before its tokens: if the card is still there, the dealer will see the token
+        if (cardAt(slot) != card) {
+            removeToken(player, slot);
+            return false;
+        }
+        return true;
     }
 
     /**
-     * synchronized!!!
      * Removes a token of a player from a grid slot.
      * @param player - the player the token belongs to.
      * @param slot   - the slot from which to remove the token.
      * @return       - true iff a token was successfully removed.
      */
     public boolean removeToken(int player, int slot) {
-        // TODO implement
-        tokensPTS[player][slot] = false;
+        if (!tokens.remove(player, slot))
+            return false;
+        env.journal.tokenRemoved(player, slot);
         env.ui.removeToken(player, slot);
-        return tokensPTS[player][slot];
+        return true;
     }
 
     /**
@@ -159,72 +349,123 @@ public class Table {
      * @return  - an Array of 3 cards contains of the cards the player placed his tokens on
      */
     public int[] getPlayerTokenedCards (int playerId) {
-        int[] cardsToReturn = new int[3];
+        int[] cardsToReturn = new int[TOKENS_PER_PLAYER];
+        getPlayerTokenedCards(playerId, cardsToReturn);
+        return cardsToReturn;
+    }
+
+    /**
+     * Same as getPlayerTokenedCards(int) but fills a caller owned array instead of allocating one.
+     *
+     * @param playerId - the player the tokens belongs to.
+     * @param cards    - the array to fill with the cards the player placed his tokens on.
+     * @return - the number of cards written to the array.
+     */
+    public int getPlayerTokenedCards (int playerId, int[] cards) {
+        int slots = tokens.slots(playerId, cards);
         int foundTokens = 0;
-        for (int i = 0; i < tokensPTS[playerId].length && foundTokens < 3; i++) {
-            if (tokensPTS[playerId][i]) {
-                cardsToReturn[foundTokens] = slotToCard[i];
-                foundTokens++;
-            }
+        for (int i = 0; i < slots; i++) {
+            int card = cardAt(cards[i]);
+            if (card != EMPTY)
+                cards[foundTokens++] = card;
         }
-        return cardsToReturn;
+        return foundTokens;
     }
 
-    //added
+    /**
+     * @param playerId - the player the tokens belongs to.
+     * @param slots    - the array to fill with the slots the player placed his tokens on (in ascending order).
+     * @return - the number of slots written to the array.
+     */
+    public int getPlayerTokenedSlots(int playerId, int[] slots) {
+        return tokens.slots(playerId, slots);
+    }
+
+    /**
+     * Checks that a claim still matches the table: every claimed card is on the table under the player's token.
+     *
+     * @param claim - the claim to check.
+     * @return - true iff the claim is still current.
+     */
+    public boolean isClaimCurrent(Claim claim) {
+        for (int card : claim.cards) {
+            int slot = cardToSlot.get(card);
+            if (slot == EMPTY || !tokens.has(claim.player, slot))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Finds the first empty slot. Dealing a card into each empty slot costs O(1) per card (amortized), since the
+     * full words of the occupancy bitmap are skipped once.
+     *
+     * @return - the first slot without a card, or -1 if the table is full.
+     */
     public int findEmptySlot(){
-        for(int i = 0; i < slotToCard.length ; i++){
-            if(slotToCard[i] == null)
-                return i;
+        for (; firstFreeWord < occupied.length; firstFreeWord++) {
+            long free = ~occupied[firstFreeWord];
+            if (free != 0) {
+                int slot = firstFreeWord * Long.SIZE + Long.numberOfTrailingZeros(free);
+                return slot < slotToCard.length ? slot : -1; // the bits after the last slot are always free
+            }
         }
         return -1;
     }
 
+    /**
+     * @param slot - the slot to check.
+     * @return - true iff there is a card in the slot.
+     */
+    public boolean hasCard(int slot) {
+        return cardAt(slot) != EMPTY;
+    }
+
     //added
     /**
      *
      */
     public boolean isPlayerTokenOnSlot(int playerId, int slot) {
-        return tokensPTS[playerId][slot];
+        return tokens.has(playerId, slot);
+    }
+
+    /**
+     * @param playerId - the player the tokens belongs to.
+     * @return - the number of tokens the player placed on the table.
+     */
+    public int countTokens(int playerId) {
+        return tokens.count(playerId);
     }
 
     /**
+     * Removes the tokens of all players from a grid slot.
      *
-     * @param slot
-     * @return
-     */
-    public synchronized LinkedList<Integer> removeTokens(int slot) {
-        LinkedList<Integer> removedPlayers = new LinkedList();
-        for (int i = 0; i < tokensPTS.length; i++) {
-            if (tokensPTS[i][slot]) {
-                removedPlayers.add(i);
-                tokensPTS[i][slot] = false;
-            }
-        }
-        env.ui.removeTokens();
-        return removedPlayers;
+     * @param slot - the slot from which to remove the tokens.
+     * @return - the number of tokens removed.
+     */
+    public int removeTokens(int slot) {
+        int removed = tokens.removeAll(slot);
+        env.journal.tokensCleared(slot, removed);
+        env.ui.removeTokens(slot);
+        return removed;
     }
 
     /**
      *
      */
     public void removeAllTokens() {
-        for (int i = 0; i < tokensPTS.length; i++) {
-            for (int j = 0; j < tokensPTS[i].length; j++) {
-                tokensPTS[i][j] = false;
-            }
-        }
+        tokens.clear();
+        env.journal.tokensCleared(-1, 0);
         env.ui.removeTokens();
     }
 
     public boolean removePlayersTokens (int player) {
+        int[] slots = new int[TOKENS_PER_PLAYER];
         int foundTokens = 0;
-        for (int i = 0; i < tokensPTS[player].length && foundTokens < 3; i++) {
-            if (tokensPTS[player][i]) {
-                tokensPTS[player][i] = false;
-                env.ui.removeToken(player, i);
+        for (int i = tokens.slots(player, slots) - 1; i >= 0; i--) {
+            if (removeToken(player, slots[i]))
                 foundTokens++;
-            }
         }
-        return (foundTokens == 3);
+        return (foundTokens == TOKENS_PER_PLAYER);
     }
 }
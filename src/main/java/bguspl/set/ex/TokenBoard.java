@@ -0,0 +1,217 @@
+package bguspl.set.ex;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongBinaryOperator;
+
+/**
+ * The tokens of all players on the table, updated without locks.
+ * Each player has one atomic word holding the slots of its tokens (a few fixed size fields), which is the source of
+ * truth for its tokens. Each slot has a bitmask of the players with a token on it (one bit per player), which is kept
+ * in sync with the player words.
+ * The memory is (players / 64) * slots + players longs, so thousands of players on a regular table take a few KB.
+ *
+ * @inv has(player, slot) iff slot is in one of the fields of the player's word.
+ * @inv count(player) <= maxTokens
+ */
+public class TokenBoard {
+
+    private static final LongBinaryOperator OR = (a, b) -> a | b;
+    private static final LongBinaryOperator AND = (a, b) -> a & b;
+
+    /**
+     * The number of tokens each player can place.
+     */
+    private final int maxTokens;
+
+    /**
+     * The number of bits of each field in a player's word, and a mask of one field.
+     */
+    private final int fieldBits;
+    private final long fieldMask;
+
+    /**
+     * The number of mask words per slot (players / 64, rounded up).
+     */
+    private final int slotWords;
+
+    /**
+     * Per player: the slots of its tokens, each stored as slot + 1 in its own field (0 if the field is free).
+     */
+    private final AtomicLongArray playerSlots;
+
+    /**
+     * Per slot: slotWords words with a bit per player that has a token on the slot.
+     */
+    private final AtomicLongArray slotPlayers;
+
+    /**
+     * The class constructor.
+     *
+     * @param players   - the number of players.
+     * @param slots     - the number of slots on the table.
+     * @param maxTokens - the number of tokens each player can place.
+     * @throws IllegalArgumentException if a slot number does not fit in a field of a player's word.
+     */
+    public TokenBoard(int players, int slots, int maxTokens) {
+        this.maxTokens = maxTokens;
+        this.fieldBits = Long.SIZE / Math.max(maxTokens, 1);
+        this.fieldMask = fieldBits == Long.SIZE ? -1L : (1L << fieldBits) - 1;
+        if (maxTokens > Long.SIZE || (fieldBits < Long.SIZE && slots > fieldMask))
+            throw new IllegalArgumentException(slots + " slots with " + maxTokens + " tokens per player do not fit in a word");
+        this.slotWords = (players + Long.SIZE - 1) / Long.SIZE;
+        this.playerSlots = new AtomicLongArray(players);
+        this.slotPlayers = new AtomicLongArray(slotWords * slots);
+    }
+
+    private int field(long word, int i) {
+        return (int) ((word >>> (i * fieldBits)) & fieldMask);
+    }
+
+    private int slotWord(int slot, int player) {
+        return slot * slotWords + player / Long.SIZE;
+    }
+
+    /**
+     * @param word - a player's word.
+     * @param slot - the slot to find (-1 to find a free field).
+     * @return - the index of the field holding the slot in the word, or -1 if there is none.
+     */
+    private int find(long word, int slot) {
+        for (int i = 0; i < maxTokens; ++i)
+            if (field(word, i) == slot + 1)
+                return i;
+        return -1;
+    }
+
+    /**
+     * Places a token of a player on a slot.
+     *
+     * @param player - the player.
+     * @param slot   - the slot.
+     * @return - true iff the token was placed (false if the player already has a token on the slot, or has no tokens
+     * left).
+     */
+    public boolean place(int player, int slot) {
+        long word, updated;
+        do {
+            word = playerSlots.get(player);
+            if (find(word, slot) != -1)
+                return false;
+            int free = find(word, -1);
+            if (free == -1)
+                return false;
+            updated = word | ((long) (slot + 1) << (free * fieldBits));
+        } while (!playerSlots.compareAndSet(player, word, updated));
+        slotPlayers.getAndAccumulate(slotWord(slot, player), 1L << (player % Long.SIZE), OR);
+        return true;
+    }
+
+    /**
+     * Removes the token of a player from a slot.
+     *
+     * @param player - the player.
+     * @param slot   - the slot.
+     * @return - true iff the player had a token on the slot.
+     */
+    public boolean remove(int player, int slot) {
+        long word;
+        int i;
+        do {
+            word = playerSlots.get(player);
+            i = find(word, slot);
+        } while (i != -1 && !playerSlots.compareAndSet(player, word, word & ~(fieldMask << (i * fieldBits))));
+        // clear the bit even if the token was already removed, in case it was set by a racing place
+        slotPlayers.getAndAccumulate(slotWord(slot, player), ~(1L << (player % Long.SIZE)), AND);
+        return i != -1;
+    }
+
+    /**
+     * Removes the tokens of all players from a slot.
+     *
+     * @param slot - the slot.
+     * @return - the number of tokens removed.
+     */
+    public int removeAll(int slot) {
+        int removed = 0;
+        for (int w = 0; w < slotWords; ++w) {
+            long players = slotPlayers.getAndSet(slot * slotWords + w, 0);
+            for (; players != 0; players &= players - 1) {
+                int player = w * Long.SIZE + Long.numberOfTrailingZeros(players);
+                if (remove(player, slot))
+                    ++removed;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * Removes all tokens from the board.
+     */
+    public void clear() {
+        for (int i = 0; i < slotPlayers.length(); ++i)
+            slotPlayers.set(i, 0);
+        for (int i = 0; i < playerSlots.length(); ++i)
+            playerSlots.set(i, 0);
+    }
+
+    /**
+     * @param player - the player.
+     * @param slot   - the slot.
+     * @return - true iff the player has a token on the slot.
+     */
+    public boolean has(int player, int slot) {
+        return find(playerSlots.get(player), slot) != -1;
+    }
+
+    /**
+     * @param player - the player.
+     * @return - the number of tokens the player placed.
+     */
+    public int count(int player) {
+        long word = playerSlots.get(player);
+        int count = 0;
+        for (int i = 0; i < maxTokens; ++i)
+            if (field(word, i) != 0)
+                ++count;
+        return count;
+    }
+
+    /**
+     * Writes the slots of a player's tokens, in ascending order.
+     *
+     * @param player - the player.
+     * @param slots  - the array to fill (at least maxTokens long to get all the slots).
+     * @return - the number of slots written.
+     */
+    public int slots(int player, int[] slots) {
+        long word = playerSlots.get(player);
+        int count = 0;
+        for (int i = 0; i < maxTokens && count < slots.length; ++i) {
+            int slot = field(word, i) - 1;
+            if (slot == -1)
+                continue;
+            // insertion sort, there are only a few tokens
+            int j = count++;
+            for (; j > 0 && slots[j - 1] > slot; --j)
+                slots[j] = slots[j - 1];
+            slots[j] = slot;
+        }
+        return count;
+    }
+
+    /**
+     * @param slot - the slot.
+     * @param word - the index of a group of 64 players (player / 64).
+     * @return - a bitmask of the players of the group with a token on the slot (bit player % 64).
+     */
+    public long players(int slot, int word) {
+        return slotPlayers.get(slot * slotWords + word);
+    }
+
+    /**
+     * @return - the number of words per slot for the players method.
+     */
+    public int playerWords() {
+        return slotWords;
+    }
+}
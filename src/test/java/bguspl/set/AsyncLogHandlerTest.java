@@ -0,0 +1,68 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.SimpleFormatter;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class AsyncLogHandlerTest {
+
+    @TempDir
+    Path directory;
+
+    private static AsyncLogHandler handler(String path, long limitBytes, int count) throws IOException {
+        AsyncLogHandler handler = new AsyncLogHandler(path, 1 << 16, limitBytes, count);
+        handler.setFormatter(new SimpleFormatter() {
+            @Override
+            public String format(LogRecord record) {
+                return record.getMessage() + System.lineSeparator();
+            }
+        });
+        return handler;
+    }
+
+    @Test
+    void publish_AllRecordsWritten() throws Exception {
+        String path = directory.resolve("game.log").toString();
+        AsyncLogHandler handler = handler(path, 0, 1);
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            int thread = t;
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 5000; i++)
+                    handler.publish(new LogRecord(Level.INFO, thread + " " + i));
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads)
+            thread.join();
+        handler.flush();
+        assertEquals(threads.length * 5000, Files.readAllLines(Path.of(path)).size());
+        handler.close();
+    }
+
+    @Test
+    void publish_RotatesBySize() throws Exception {
+        String path = directory.resolve("game.log").toString();
+        AsyncLogHandler handler = handler(path, 1000, 3);
+        for (int i = 0; i < 1000; i++)
+            handler.publish(new LogRecord(Level.INFO, "record " + i));
+        handler.close();
+
+        assertTrue(new File(path + ".2").exists());
+        assertTrue(!new File(path + ".3").exists());
+        for (String file : new String[]{path, path + ".1", path + ".2"})
+            assertTrue(new File(file).length() <= 1000);
+        // the newest records are in the current file
+        assertTrue(Files.readAllLines(Path.of(path)).contains("record 999"));
+    }
+}
@@ -0,0 +1,111 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CardImagesTest {
+
+    private static final int DECK_SIZE = 81;
+
+    private final AtomicIntegerArray loads = new AtomicIntegerArray(DECK_SIZE);
+
+    private CardImages images(int capacity) {
+        return new CardImages(card -> {
+            loads.incrementAndGet(card);
+            return new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB);
+        }, capacity);
+    }
+
+    @Test
+    void get_DecodesOnceWhileCached() {
+        CardImages images = images(4);
+        assertSame(images.get(7), images.get(7));
+        assertEquals(1, loads.get(7));
+        assertEquals(0, loads.get(8));
+        images.close();
+    }
+
+    @Test
+    void get_EvictsLeastRecentlyUsed() {
+        CardImages images = images(3);
+        images.get(0);
+        images.get(1);
+        images.get(2);
+        images.get(0); // 1 is now the least recently used
+        images.get(3);
+        assertEquals(3, images.size());
+
+        images.get(0);
+        images.get(2);
+        assertEquals(1, loads.get(0));
+        assertEquals(1, loads.get(2));
+        images.get(1);
+        assertEquals(2, loads.get(1));
+        images.close();
+    }
+
+    @Test
+    void prefetch_DecodesInBackground() throws InterruptedException {
+        CardImages images = images(DECK_SIZE);
+        for (int card = 0; card < 10; card++)
+            images.prefetch(card);
+        images.prefetch(10); // decoded after the others are done
+        for (int i = 0; i < 1000 && loads.get(10) == 0; i++)
+            Thread.sleep(1);
+        for (int card = 0; card < 10; card++) {
+            images.get(card);
+            assertEquals(1, loads.get(card));
+        }
+        images.close();
+    }
+
+    @Test
+    void get_WaitsForBackgroundDecode() throws Exception {
+        CountDownLatch decoding = new CountDownLatch(1), release = new CountDownLatch(1);
+        CardImages images = new CardImages(card -> {
+            loads.incrementAndGet(card);
+            decoding.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            return new BufferedImage(1, 1, BufferedImage.TYPE_INT_RGB);
+        }, 4);
+        images.prefetch(5);
+        assertTrue(decoding.await(5, TimeUnit.SECONDS));
+
+        AtomicReference<Image> image = new AtomicReference<>();
+        Thread edt = new Thread(() -> image.set(images.get(5)));
+        edt.start();
+        Thread.sleep(20);
+        release.countDown();
+        edt.join();
+        assertNotNull(image.get());
+        assertEquals(1, loads.get(5)); // joined the background decode instead of decoding again
+        images.close();
+    }
+
+    @Test
+    void get_LoaderErrorsReachCaller() {
+        CardImages images = new CardImages(card -> {
+            throw new IllegalStateException("missing card " + card);
+        }, 4);
+        images.prefetch(1);
+        assertThrows(IllegalStateException.class, () -> images.get(1));
+        assertThrows(IllegalStateException.class, () -> images.get(2));
+        images.close();
+    }
+}
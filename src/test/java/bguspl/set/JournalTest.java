@@ -0,0 +1,56 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class JournalTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void read_WrittenEvents() throws Exception {
+        Path path = directory.resolve("game.journal");
+        Journal journal = Journal.create(path, 100);
+        journal.cardPlaced(3, 17);
+        journal.tokenPlaced(1, 3);
+        journal.claim(1, new int[]{17, 4, 9});
+        journal.verdict(1, Journal.VERDICT_LEGAL);
+        journal.close();
+
+        try (JournalReader reader = new JournalReader(path)) {
+            assertEquals(4, reader.size());
+            JournalReader.Entry placed = reader.get(0);
+            assertEquals(Journal.Event.CARD_PLACED, placed.event);
+            assertEquals(3, placed.arg0);
+            assertEquals(17, placed.arg1);
+            JournalReader.Entry claim = reader.get(2);
+            assertEquals(Journal.Event.CLAIM, claim.event);
+            assertEquals(1, claim.player);
+            assertEquals(9, claim.arg2);
+            assertEquals(Journal.VERDICT_LEGAL, reader.get(3).arg0);
+        }
+    }
+
+    @Test
+    void read_FullJournal() throws Exception {
+        Path path = directory.resolve("game.journal");
+        Journal journal = Journal.create(path, 10);
+        for (int i = 0; i < 15; i++)
+            journal.tokenPlaced(0, i);
+        assertEquals(5, journal.lost());
+
+        // before the journal is closed, the reader finds the end by the written records
+        try (JournalReader reader = new JournalReader(path)) {
+            int slot = 0;
+            for (JournalReader.Entry entry : reader)
+                assertEquals(slot++, entry.arg0);
+            assertEquals(10, slot);
+        }
+        journal.close();
+    }
+}
@@ -0,0 +1,128 @@
+package bguspl.set;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class UtilImplTest {
+
+    private static Config config(int featureCount, int featureSize) {
+        return config(featureCount, featureSize, -1);
+    }
+
+    private static Config config(int featureCount, int featureSize, int parallelThreshold) {
+        Properties properties = new Properties();
+        properties.put("ParallelFindSetsThreshold", Integer.toString(parallelThreshold));
+        properties.put("FeatureCount", Integer.toString(featureCount));
+        properties.put("FeatureSize", Integer.toString(featureSize));
+        properties.put("LogLevel", "OFF");
+        return new Config(new MockLogger(), properties);
+    }
+
+    /**
+     * A straightforward implementation of the set rules to compare against.
+     */
+    private static boolean isSet(Util util, int featureCount, int[] cards) {
+        int[][] features = util.cardsToFeatures(cards);
+        for (int i = 0; i < featureCount; ++i) {
+            int same = 0, different = 0;
+            for (int j = 0; j < cards.length; ++j)
+                for (int k = j + 1; k < cards.length; ++k)
+                    if (features[j][i] == features[k][i]) same++;
+                    else different++;
+            if (same != 0 && different != 0) return false;
+        }
+        return true;
+    }
+
+    @Test
+    void testSet_AllTriplesOfTheDefaultDeck() {
+        Config config = config(4, 3);
+        Util util = new UtilImpl(config);
+        for (int a = 0; a < config.deckSize; ++a)
+            for (int b = a; b < config.deckSize; ++b)
+                for (int c = b; c < config.deckSize; ++c) {
+                    int[] cards = {a, b, c};
+                    assertEquals(isSet(util, config.featureCount, cards), util.testSet(cards));
+                }
+    }
+
+    @Test
+    void testSet_FeatureSizeFour() {
+        Config config = config(3, 4);
+        Util util = new UtilImpl(config);
+        for (int a = 0; a < config.deckSize; ++a)
+            for (int b = a + 1; b < config.deckSize; ++b)
+                for (int c = b + 1; c < config.deckSize; c += 3) {
+                    int[] cards = {a, b, c, (a + b + c) % config.deckSize};
+                    assertEquals(isSet(util, config.featureCount, cards), util.testSet(cards));
+                }
+    }
+
+    @Test
+    void findSets_SameSetsAsTheCombinationWalk() {
+        Config config = config(4, 3);
+        Util util = new UtilImpl(config);
+        List<Integer> deck = new ArrayList<>();
+        for (int card = 0; card < config.deckSize; ++card)
+            deck.add(card);
+        Collections.shuffle(deck, new Random(7));
+        deck = deck.subList(0, 30);
+
+        List<int[]> expected = new ArrayList<>();
+        for (int i = 0; i < deck.size(); ++i)
+            for (int j = i + 1; j < deck.size(); ++j)
+                for (int k = j + 1; k < deck.size(); ++k) {
+                    int[] cards = {deck.get(i), deck.get(j), deck.get(k)};
+                    if (isSet(util, config.featureCount, cards)) {
+                        Arrays.sort(cards);
+                        expected.add(cards);
+                    }
+                }
+
+        List<int[]> sets = util.findSets(deck, Integer.MAX_VALUE);
+        assertEquals(expected.size(), sets.size());
+        for (int i = 0; i < expected.size(); ++i)
+            assertArrayEquals(expected.get(i), sets.get(i));
+        assertEquals(1, util.findSets(deck, 1).size());
+        assertEquals(expected.size(), util.streamSets(deck).count());
+        assertArrayEquals(expected.get(0), util.streamSets(deck).findFirst().orElseThrow());
+    }
+
+    @Test
+    void findSets_ParallelFindsTheSameSets() {
+        for (int featureSize = 3; featureSize <= 4; ++featureSize) {
+            Config config = config(3, featureSize);
+            List<Integer> deck = new ArrayList<>();
+            for (int card = 0; card < config.deckSize; ++card)
+                deck.add(card);
+
+            List<String> expected = new ArrayList<>();
+            new UtilImpl(config).findSets(deck, Integer.MAX_VALUE).forEach(set -> expected.add(Arrays.toString(set)));
+            Util parallel = new UtilImpl(config(3, featureSize, 0));
+            List<String> sets = new ArrayList<>();
+            parallel.findSets(deck, Integer.MAX_VALUE).forEach(set -> sets.add(Arrays.toString(set)));
+            Collections.sort(expected);
+            Collections.sort(sets);
+            assertEquals(expected, sets);
+
+            assertEquals(1, parallel.findSets(deck, 1).size());
+            assertEquals(5, parallel.findSets(deck, 5).size());
+        }
+    }
+
+    static class MockLogger extends Logger {
+        protected MockLogger() {
+            super("", null);
+        }
+    }
+}
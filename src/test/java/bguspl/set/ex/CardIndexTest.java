@@ -0,0 +1,48 @@
+package bguspl.set.ex;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class CardIndexTest {
+
+    private static void randomOperationsAndAssert(int deckSize, int tableSize) {
+        CardIndex index = new CardIndex(deckSize, tableSize);
+        Map<Integer, Integer> expected = new HashMap<>();
+        Random random = new Random(7);
+        for (int i = 0; i < 100000; ++i) {
+            int card = random.nextInt(deckSize);
+            if (expected.size() < tableSize && random.nextBoolean()) {
+                int slot = random.nextInt(tableSize);
+                index.put(card, slot);
+                expected.put(card, slot);
+            } else {
+                assertEquals(expected.getOrDefault(card, CardIndex.NONE), index.remove(card));
+                expected.remove(card);
+            }
+            for (Map.Entry<Integer, Integer> entry : expected.entrySet())
+                assertEquals(entry.getValue(), index.get(entry.getKey()));
+            assertEquals(expected.getOrDefault(card, CardIndex.NONE), index.get(card));
+        }
+    }
+
+    @Test
+    void denseIndex_MatchesMap() {
+        randomOperationsAndAssert(81, 12);
+    }
+
+    @Test
+    void hashedIndex_MatchesMap() {
+        randomOperationsAndAssert(CardIndex.MAX_DENSE_DECK_SIZE * 64, 12);
+    }
+
+    @Test
+    void hashedIndex_FullTable() {
+        // few distinct cards so that the probe sequences collide and wrap around
+        randomOperationsAndAssert(CardIndex.MAX_DENSE_DECK_SIZE + 1, 50);
+    }
+}
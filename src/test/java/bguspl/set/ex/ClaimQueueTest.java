@@ -0,0 +1,62 @@
+package bguspl.set.ex;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ClaimQueueTest {
+
+    @Test
+    void emptyQueue_PollsNull() {
+        ClaimQueue queue = new ClaimQueue();
+        assertTrue(queue.isEmpty());
+        assertNull(queue.poll());
+
+        Claim claim = new Claim(0, new int[]{1, 2, 3}, 0);
+        queue.offer(claim);
+        assertFalse(queue.isEmpty());
+        assertEquals(claim, queue.poll());
+        assertTrue(queue.isEmpty());
+        assertNull(queue.poll());
+    }
+
+    @Test
+    void concurrentProducers_NoLossNoDuplicatesFifoPerProducer() throws InterruptedException {
+        int producers = 4, claimsPerProducer = 100000;
+        ClaimQueue queue = new ClaimQueue();
+        Thread[] threads = new Thread[producers];
+        for (int p = 0; p < producers; p++) {
+            int player = p;
+            threads[p] = new Thread(() -> {
+                // the claim's first card is its sequence number in the producer
+                for (int i = 0; i < claimsPerProducer; i++)
+                    queue.offer(new Claim(player, new int[]{i}, 0));
+            });
+            threads[p].start();
+        }
+
+        // the single consumer polls while the producers offer
+        int[] next = new int[producers];
+        int consumed = 0;
+        while (consumed < producers * claimsPerProducer) {
+            Claim claim = queue.poll();
+            if (claim == null) {
+                Thread.onSpinWait();
+                continue;
+            }
+            // in order and exactly once: a lost claim leaves a gap, a duplicate repeats a number
+            assertEquals(next[claim.player]++, claim.cards[0]);
+            consumed++;
+        }
+        for (Thread thread : threads)
+            thread.join();
+
+        for (int p = 0; p < producers; p++)
+            assertEquals(claimsPerProducer, next[p]);
+        assertTrue(queue.isEmpty());
+        assertNull(queue.poll());
+    }
+}
@@ -0,0 +1,146 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.UserInterface;
+import bguspl.set.UtilImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.logging.Logger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+@ExtendWith(MockitoExtension.class)
+class DealerTest {
+
+    @Mock
+    private UserInterface ui;
+    @Mock
+    private Logger logger;
+
+    private Env env;
+    private Table table;
+
+    @BeforeEach
+    void setUp() {
+        // purposely do not find the configuration files (use defaults here).
+        Config config = new Config(logger, (String) null);
+        env = new Env(logger, config, ui, new UtilImpl(config));
+        table = new Table(env);
+    }
+
+    /**
+     * Runs a game that ends immediately with the given scores and returns the announced winners.
+     */
+    private int[] winners(int... scores) {
+        Player[] players = new Player[scores.length];
+        Dealer dealer = new Dealer(env, table, players);
+        for (int i = 0; i < players.length; i++) {
+            players[i] = new Player(env, dealer, table, i, true);
+            for (int point = 0; point < scores[i]; point++)
+                players[i].point();
+            for (int penalty = 0; penalty < -scores[i]; penalty++)
+                players[i].penalty();
+        }
+        dealer.terminate();
+        dealer.run();
+
+        ArgumentCaptor<int[]> winners = ArgumentCaptor.forClass(int[].class);
+        verify(ui).announceWinner(winners.capture());
+        return winners.getValue();
+    }
+
+    @Test
+    void announceWinners_SingleWinner() {
+        assertArrayEquals(new int[]{1}, winners(1, 3, 2));
+    }
+
+    @Test
+    void announceWinners_DrawNotFirstPlayers() {
+        assertArrayEquals(new int[]{1, 3}, winners(0, 2, 1, 2));
+    }
+
+    @Test
+    void announceWinners_NegativeScores() {
+        assertArrayEquals(new int[]{0, 2}, winners(-1, -2, -1));
+    }
+
+    /**
+     * Starts a dealer and waits until the table is dealt.
+     */
+    private Thread startDealer(Dealer dealer) throws InterruptedException {
+        Thread thread = new Thread(dealer, "dealer");
+        thread.start();
+        for (int i = 0; i < 5000 && table.countCards() < env.config.tableSize; i++)
+            Thread.sleep(1);
+        assertEquals(env.config.tableSize, table.countCards());
+        return thread;
+    }
+
+    /**
+     * Places the player's tokens on the first slots and returns the cards under them.
+     */
+    private int[] placeTokens(int player) {
+        int[] cards = new int[Table.TOKENS_PER_PLAYER];
+        for (int slot = 0; slot < cards.length; slot++) {
+            assertTrue(table.placeToken(player, slot));
+            cards[slot] = table.cardAt(slot);
+        }
+        return cards;
+    }
+
+    @Test
+    void claimOnReplacedCard_DiscardedWithoutVerdict() throws InterruptedException {
+        Player player = mock(Player.class);
+        Dealer dealer = new Dealer(env, table, new Player[]{player});
+        Thread thread = startDealer(dealer);
+        try {
+            int[] cards = placeTokens(0);
+            // the card under the player's first token is replaced before the dealer sees the claim
+            int replacement = table.cardAt(env.config.tableSize - 1);
+            table.removeCard(env.config.tableSize - 1);
+            table.removeCard(0);
+            table.removeTokens(0);
+            table.placeCard(replacement, 0);
+
+            dealer.addToCheckList(0, cards);
+            verify(player, timeout(5000)).claimDiscarded();
+            verify(player, never()).point();
+            verify(player, never()).penalty();
+            assertEquals(1, dealer.getDiscardedClaims());
+        } finally {
+            dealer.terminate();
+            thread.join();
+        }
+    }
+
+    @Test
+    void currentClaim_GetsVerdict() throws InterruptedException {
+        Player player = mock(Player.class);
+        Dealer dealer = new Dealer(env, table, new Player[]{player});
+        Thread thread = startDealer(dealer);
+        try {
+            int[] cards = placeTokens(0);
+            boolean legal = env.util.testSet(cards);
+            dealer.addToCheckList(0, cards);
+            if (legal) verify(player, timeout(5000)).point();
+            else verify(player, timeout(5000)).penalty();
+        } finally {
+            dealer.terminate();
+            thread.join();
+        }
+        verify(player, never()).claimDiscarded();
+        assertEquals(0, dealer.getDiscardedClaims());
+    }
+}
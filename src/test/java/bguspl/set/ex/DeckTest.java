@@ -0,0 +1,87 @@
+package bguspl.set.ex;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DeckTest {
+
+    @Test
+    void draw_AllCardsOnce() {
+        Deck deck = new Deck(81, new SplittableRandom(1));
+        boolean[] drawn = new boolean[81];
+        while (!deck.isEmpty()) {
+            int card = deck.draw();
+            assertTrue(!drawn[card]);
+            drawn[card] = true;
+        }
+        for (boolean card : drawn)
+            assertTrue(card);
+    }
+
+    @Test
+    void draw_SameSeedSameCards() {
+        int[] first = new int[12], second = new int[12];
+        Deck.seeded(81, 42).draw(first);
+        Deck.seeded(81, 42).draw(second);
+        assertArrayEquals(first, second);
+    }
+
+    @Test
+    void upcoming_AreTheNextDraws() {
+        Deck deck = new Deck(81, new SplittableRandom(3));
+        boolean[] drawn = new boolean[81];
+        int[] upcoming = new int[12];
+        while (!deck.isEmpty()) {
+            int count = deck.upcoming(upcoming);
+            assertEquals(Math.min(12, deck.size()), count);
+            // peeking again does not change the next cards
+            int[] again = new int[5];
+            deck.upcoming(again);
+            assertArrayEquals(Arrays.copyOf(upcoming, Math.min(5, count)), Arrays.copyOf(again, Math.min(5, count)));
+            for (int i = 0; i < Math.min(3, count); i++) {
+                int card = deck.draw();
+                assertEquals(upcoming[i], card);
+                assertTrue(!drawn[card]);
+                drawn[card] = true;
+            }
+        }
+        for (boolean card : drawn)
+            assertTrue(card);
+    }
+
+    @Test
+    void upcoming_ReturnedCardsCanBeDrawn() {
+        Deck deck = new Deck(12, new SplittableRandom(4));
+        int[] cards = new int[6];
+        deck.draw(cards);
+        deck.upcoming(new int[6]);
+        deck.addAll(cards);
+        boolean[] drawn = new boolean[12];
+        while (!deck.isEmpty()) {
+            int card = deck.draw();
+            assertTrue(!drawn[card]);
+            drawn[card] = true;
+        }
+        for (boolean card : drawn)
+            assertTrue(card);
+    }
+
+    @Test
+    void addAll_ReturnsDrawnCards() {
+        Deck deck = new Deck(12, new SplittableRandom(2));
+        int[] cards = new int[20];
+        assertEquals(12, deck.draw(cards));
+        assertTrue(deck.isEmpty());
+
+        int[] table = Arrays.copyOf(cards, 12);
+        table[5] = Table.EMPTY;
+        deck.addAll(table);
+        assertEquals(11, deck.size());
+    }
+}
@@ -0,0 +1,131 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.UtilImpl;
+import org.junit.jupiter.api.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GameMetricsTest {
+
+    private static ObjectName register(GameMetrics metrics, String test) throws Exception {
+        ObjectName name = new ObjectName(GameMetrics.OBJECT_NAME + ",test=" + test);
+        ManagementFactory.getPlatformMBeanServer().registerMBean(metrics, name);
+        return name;
+    }
+
+    @Test
+    void claimsAndVerdicts_Counted() {
+        GameMetrics metrics = new GameMetrics(new Player[2]);
+        for (int i = 0; i < 5; i++)
+            metrics.claimSubmitted();
+        metrics.claimPolled();
+        metrics.verdict(true, System.nanoTime());
+        metrics.claimPolled();
+        metrics.verdict(false, System.nanoTime());
+        metrics.claimPolled();
+        metrics.claimDiscarded();
+        metrics.remainingSets(7);
+
+        assertEquals(5, metrics.getClaimsSubmitted());
+        assertEquals(2, metrics.getClaimsVerified());
+        assertEquals(1, metrics.getLegalVerdicts());
+        assertEquals(1, metrics.getIllegalVerdicts());
+        assertEquals(1, metrics.getDiscardedClaims());
+        assertEquals(2, metrics.getClaimQueueDepth());
+        assertEquals(2, metrics.verdictLatency().count());
+        assertEquals(7, metrics.getRemainingSets());
+        assertArrayEquals(new int[2], metrics.getActionQueueOccupancy());
+    }
+
+    @Test
+    void registered_AttributesReadable() throws Exception {
+        GameMetrics metrics = new GameMetrics(new Player[0]);
+        metrics.timerLoopIteration();
+        metrics.reshuffled();
+        metrics.remainingSets(3);
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = register(metrics, "attributes");
+        try {
+            assertEquals(1L, server.getAttribute(name, "TimerLoopIterations"));
+            assertEquals(1L, server.getAttribute(name, "Reshuffles"));
+            assertEquals(3, server.getAttribute(name, "RemainingSets"));
+        } finally {
+            server.unregisterMBean(name);
+        }
+    }
+
+    @Test
+    void remainingSets_ReadWhileDealerMutatesCounter() throws Exception {
+        // 4 cards per set: the counter is not incremental, so counting has side effects the reader must not trigger
+        Properties properties = new Properties();
+        properties.put("FeatureCount", "2");
+        properties.put("FeatureSize", "4");
+        TableTest.MockLogger logger = new TableTest.MockLogger();
+        Config config = new Config(logger, properties);
+        Env env = new Env(logger, config, new TableTest.MockUserInterface(), new UtilImpl(config));
+
+        SetCounter counter = new SetCounter(env);
+        List<Integer> live = new ArrayList<>();
+        for (int card = 0; card < config.deckSize; card++) {
+            counter.add(card);
+            live.add(card);
+        }
+        int initialSets = counter.count();
+        GameMetrics metrics = new GameMetrics(new Player[0]);
+        metrics.remainingSets(counter.knownCount());
+
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = register(metrics, "concurrent");
+        AtomicInteger badReads = new AtomicInteger();
+        Thread reader = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                try {
+                    int sets = (Integer) server.getAttribute(name, "RemainingSets");
+                    if (sets < -1 || sets > initialSets) badReads.incrementAndGet();
+                } catch (Exception e) {
+                    badReads.incrementAndGet();
+                }
+            }
+        });
+        reader.start();
+        try {
+            // the "dealer": removes cards, checks the counter against a recount and publishes a snapshot
+            for (int round = 0; round < 20; round++) {
+                while (!live.isEmpty()) {
+                    counter.remove(live.remove(live.size() - 1));
+                    assertEquals(env.util.findSets(live, Integer.MAX_VALUE).size(), counter.count());
+                    assertEquals(!live.isEmpty() && counter.count() > 0, counter.hasSets());
+                    metrics.remainingSets(counter.knownCount());
+                }
+                for (int card = 0; card < config.deckSize; card++) {
+                    counter.add(card);
+                    live.add(card);
+                }
+                assertEquals(-1, counter.knownCount()); // not recounted yet: the snapshot says unknown
+                metrics.remainingSets(counter.knownCount());
+                assertEquals(initialSets, counter.count());
+                metrics.remainingSets(counter.knownCount());
+            }
+        } finally {
+            reader.interrupt();
+            reader.join();
+            server.unregisterMBean(name);
+        }
+        assertEquals(0, badReads.get());
+        assertEquals(initialSets, counter.count());
+        assertEquals(initialSets, metrics.getRemainingSets());
+        assertTrue(initialSets > 0);
+    }
+}
@@ -0,0 +1,38 @@
+package bguspl.set.ex;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LatencyHistogramTest {
+
+    @Test
+    void percentile_WithinBucketPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long value = 1; value <= 100_000; value++)
+            histogram.record(value);
+
+        assertEquals(100_000, histogram.count());
+        assertEquals(100_000, histogram.max());
+        for (double percentile : new double[]{1, 50, 90, 99, 99.9}) {
+            long expected = (long) (100_000 * percentile / 100);
+            long actual = histogram.percentile(percentile);
+            assertTrue(actual >= expected && actual <= expected * 1.125, percentile + ": " + actual);
+        }
+        assertEquals(100_000, histogram.percentile(100));
+    }
+
+    @Test
+    void add_MergesCounts() {
+        LatencyHistogram first = new LatencyHistogram(), second = new LatencyHistogram();
+        first.record(5);
+        second.record(7);
+        second.record(1_000_000);
+        first.add(second);
+
+        assertEquals(3, first.count());
+        assertEquals(1_000_000, first.max());
+        assertEquals(7, first.percentile(50));
+    }
+}
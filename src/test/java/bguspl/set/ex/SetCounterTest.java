@@ -0,0 +1,55 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.Util;
+import bguspl.set.UtilImpl;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class SetCounterTest {
+
+    private static Env env(String featureCount, String featureSize) {
+        Properties properties = new Properties();
+        properties.put("FeatureCount", featureCount);
+        properties.put("FeatureSize", featureSize);
+        TableTest.MockLogger logger = new TableTest.MockLogger();
+        Config config = new Config(logger, properties);
+        return new Env(logger, config, new TableTest.MockUserInterface(), new UtilImpl(config));
+    }
+
+    private static void removeAllAndAssert(Env env) {
+        Util util = env.util;
+        SetCounter counter = new SetCounter(env);
+        List<Integer> live = new ArrayList<>();
+        for (int card = 0; card < env.config.deckSize; ++card) {
+            counter.add(card);
+            live.add(card);
+        }
+
+        Collections.shuffle(live, new Random(3));
+        while (!live.isEmpty()) {
+            assertEquals(util.findSets(live, Integer.MAX_VALUE).size(), counter.count());
+            assertEquals(!util.findSets(live, 1).isEmpty(), counter.hasSets());
+            counter.remove(live.remove(live.size() - 1));
+        }
+        assertEquals(0, counter.count());
+    }
+
+    @Test
+    void count_ThreeCardsPerSet() {
+        removeAllAndAssert(env("4", "3"));
+    }
+
+    @Test
+    void count_FourCardsPerSet() {
+        removeAllAndAssert(env("2", "4"));
+    }
+}
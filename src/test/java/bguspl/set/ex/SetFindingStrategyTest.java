@@ -0,0 +1,56 @@
+package bguspl.set.ex;
+
+import bguspl.set.Config;
+import bguspl.set.Env;
+import bguspl.set.UtilImpl;
+import org.junit.jupiter.api.Test;
+
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SetFindingStrategyTest {
+
+    private Env env;
+    private Table table;
+
+    private SetFindingStrategy strategy(String successRate) {
+        Properties properties = new Properties();
+        properties.put("TableDelaySeconds", "0");
+        properties.put("ComputerSuccessRate", successRate);
+        properties.put("ComputerReactionMinSeconds", "0");
+        properties.put("ComputerReactionMeanSeconds", "0");
+        TableTest.MockLogger logger = new TableTest.MockLogger();
+        Config config = new Config(logger, properties);
+        env = new Env(logger, config, new TableTest.MockUserInterface(), new UtilImpl(config));
+        table = new Table(env);
+        // cards 0, 1, 2 are a set (they differ only in the last feature)
+        for (int slot = 0; slot < config.tableSize; slot++)
+            table.placeCard(slot, slot);
+        return new SetFindingStrategy(env, table, 0);
+    }
+
+    private int[] press(int[] slots) {
+        for (int slot : slots)
+            if (!table.removeToken(0, slot))
+                table.placeToken(0, slot);
+        int[] cards = new int[Table.TOKENS_PER_PLAYER];
+        assertEquals(cards.length, table.getPlayerTokenedCards(0, cards));
+        return cards;
+    }
+
+    @Test
+    void nextPresses_AlwaysSucceeds() throws InterruptedException {
+        SetFindingStrategy strategy = strategy("1");
+        table.placeToken(0, 11); // a leftover token that is not part of the claim
+        assertTrue(env.util.testSet(press(strategy.nextPresses())));
+    }
+
+    @Test
+    void nextPresses_NeverSucceeds() throws InterruptedException {
+        SetFindingStrategy strategy = strategy("0");
+        assertFalse(env.util.testSet(press(strategy.nextPresses())));
+    }
+}
@@ -7,17 +7,19 @@ import bguspl.set.Util;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
+import java.util.Arrays;
 import java.util.List;
 import java.util.Properties;
 import java.util.logging.Logger;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 class TableTest {
 
     Table table;
-    private Integer[] slotToCard;
-    private Integer[] cardToSlot;
+    private int[] slotToCard;
+    private CardIndex cardToSlot;
 
     @BeforeEach
     void setUp() {
@@ -32,34 +34,32 @@ class TableTest {
         properties.put("PlayerKeys2", "85,73,79,80");
         MockLogger logger = new MockLogger();
         Config config = new Config(logger, properties);
-        slotToCard = new Integer[config.tableSize];
-        cardToSlot = new Integer[config.deckSize];
+        slotToCard = new int[config.tableSize];
+        Arrays.fill(slotToCard, Table.EMPTY);
+        cardToSlot = new CardIndex(config.deckSize, config.tableSize);
 
         Env env = new Env(logger, config, new MockUserInterface(), new MockUtil());
         table = new Table(env, slotToCard, cardToSlot);
     }
 
     private int fillSomeSlots() {
-        slotToCard[1] = 3;
-        slotToCard[2] = 5;
-        cardToSlot[3] = 1;
-        cardToSlot[5] = 2;
+        table.placeCard(3, 1);
+        table.placeCard(5, 2);
 
         return 2;
     }
 
     private void fillAllSlots() {
         for (int i = 0; i < slotToCard.length; ++i) {
-            slotToCard[i] = i;
-            cardToSlot[i] = i;
+            table.placeCard(i, i);
         }
     }
 
     private void placeSomeCardsAndAssert() throws InterruptedException {
         table.placeCard(8, 2);
 
-        assertEquals(8, (int) slotToCard[2]);
-        assertEquals(2, (int) cardToSlot[8]);
+        assertEquals(8, slotToCard[2]);
+        assertEquals(2, cardToSlot.get(8));
     }
 
     @Test
@@ -95,6 +95,71 @@ class TableTest {
         placeSomeCardsAndAssert();
     }
 
+    @Test
+    void findEmptySlot_SomeSlotsAreFilled() {
+        fillSomeSlots();
+        assertEquals(0, table.findEmptySlot());
+    }
+
+    @Test
+    void findEmptySlot_AllSlotsAreFilled() {
+        fillAllSlots();
+        assertEquals(-1, table.findEmptySlot());
+    }
+
+    @Test
+    void findEmptySlot_CardRemoved() {
+        fillAllSlots();
+        table.removeCard(2);
+        assertEquals(2, table.findEmptySlot());
+        assertEquals(slotToCard.length - 1, table.countCards());
+    }
+
+    @Test
+    void placeCards_SomeSlotsAreFilled() {
+        fillSomeSlots();
+        table.placeCards(new int[]{7, 9}, table.emptySlots());
+        assertEquals(slotToCard.length, table.countCards());
+        assertEquals(7, slotToCard[0]);
+        assertEquals(9, slotToCard[3]);
+        assertEquals(3, cardToSlot.get(9));
+    }
+
+    @Test
+    void removeCards_AllSlotsAreFilled() {
+        fillAllSlots();
+        int[] cards = table.removeCards(new int[]{1, 3});
+        assertEquals(1, cards[0]);
+        assertEquals(3, cards[1]);
+        assertEquals(Table.EMPTY, slotToCard[3]);
+        assertEquals(Table.EMPTY, cardToSlot.get(1));
+        assertEquals(2, table.countCards());
+        assertEquals(1, table.emptySlots()[0]);
+    }
+
+    @Test
+    void slotBuffers_RemoveAndRedealWithoutAllocating() {
+        fillAllSlots();
+        int[] slots = new int[slotToCard.length], cards = new int[slotToCard.length];
+        assertEquals(slotToCard.length, table.occupiedSlots(slots));
+        slots[0] = 1;
+        slots[1] = 3;
+        table.removeCards(slots, 2, cards);
+        assertEquals(1, cards[0]);
+        assertEquals(3, cards[1]);
+        assertEquals(2, table.countCards());
+
+        assertEquals(2, table.emptySlots(slots));
+        assertEquals(1, slots[0]);
+        assertEquals(3, slots[1]);
+        cards[0] = 7;
+        cards[1] = 9;
+        table.placeCards(cards, slots, 1); // only the first card
+        assertEquals(7, slotToCard[1]);
+        assertEquals(Table.EMPTY, slotToCard[3]);
+        assertEquals(3, table.countCards());
+    }
+
     static class MockUserInterface implements UserInterface {
         @Override
         public void dispose() {}
@@ -103,6 +168,12 @@ class TableTest {
         @Override
         public void removeCard(int slot) {}
         @Override
+        public void placeCards(int[] cards, int[] slots, int count) {}
+        @Override
+        public void removeCards(int[] slots, int count) {}
+        @Override
+        public void upcomingCards(int[] cards, int count) {}
+        @Override
         public void setCountdown(long millies, boolean warn) {}
         @Override
         public void setElapsed(long millies) {}
@@ -133,16 +204,31 @@ class TableTest {
             return new int[0][];
         }
 
+        @Override
+        public long cardToPacked(int card) {
+            return 0;
+        }
+
         @Override
         public boolean testSet(int[] cards) {
             return false;
         }
 
+        @Override
+        public int completeSet(int first, int second) {
+            return -1;
+        }
+
         @Override
         public List<int[]> findSets(List<Integer> deck, int count) {
             return null;
         }
 
+        @Override
+        public Stream<int[]> streamSets(List<Integer> deck) {
+            return Stream.empty();
+        }
+
         @Override
         public void spin() {}
     }
@@ -0,0 +1,99 @@
+package bguspl.set.ex;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TokenBoardTest {
+
+    private static void assertConsistent(TokenBoard board, boolean[][] expected) {
+        int[] slots = new int[3];
+        for (int player = 0; player < expected.length; ++player) {
+            int count = 0;
+            for (int slot = 0; slot < expected[player].length; ++slot) {
+                assertEquals(expected[player][slot], board.has(player, slot));
+                boolean bit = (board.players(slot, player / 64) & (1L << (player % 64))) != 0;
+                assertEquals(expected[player][slot], bit);
+                if (expected[player][slot])
+                    slots[count++] = slot;
+            }
+            assertEquals(count, board.count(player));
+            int[] actual = new int[3];
+            assertEquals(count, board.slots(player, actual));
+            for (int i = 0; i < count; ++i)
+                assertEquals(slots[i], actual[i]);
+        }
+    }
+
+    @Test
+    void randomToggles_MatchModel() {
+        int players = 130, slots = 12;
+        TokenBoard board = new TokenBoard(players, slots, 3);
+        boolean[][] expected = new boolean[players][slots];
+        int[] counts = new int[players];
+        Random random = new Random(5);
+        for (int i = 0; i < 20000; ++i) {
+            int player = random.nextInt(players), slot = random.nextInt(slots);
+            if (random.nextInt(50) == 0) {
+                int removed = 0;
+                for (int p = 0; p < players; ++p)
+                    if (expected[p][slot]) {
+                        expected[p][slot] = false;
+                        counts[p]--;
+                        removed++;
+                    }
+                assertEquals(removed, board.removeAll(slot));
+            } else if (expected[player][slot]) {
+                assertTrue(board.remove(player, slot));
+                expected[player][slot] = false;
+                counts[player]--;
+            } else if (counts[player] < 3) {
+                assertTrue(board.place(player, slot));
+                expected[player][slot] = true;
+                counts[player]++;
+            } else {
+                assertFalse(board.place(player, slot));
+            }
+            if (i % 100 == 0)
+                assertConsistent(board, expected);
+        }
+        assertConsistent(board, expected);
+        board.clear();
+        assertConsistent(board, new boolean[players][slots]);
+    }
+
+    @Test
+    void concurrentToggles_KeepSlotMasksInSync() throws InterruptedException {
+        int players = 4, slots = 6;
+        TokenBoard board = new TokenBoard(players, slots, 3);
+        Thread[] threads = new Thread[players];
+        for (int p = 0; p < players; ++p) {
+            int player = p;
+            threads[p] = new Thread(() -> {
+                Random random = new Random(player);
+                for (int i = 0; i < 100000; ++i) {
+                    int slot = random.nextInt(slots);
+                    if (!board.remove(player, slot))
+                        board.place(player, slot);
+                }
+            });
+            threads[p].start();
+        }
+        // a "dealer" clearing slots while the players toggle
+        Random random = new Random(players);
+        for (int i = 0; i < 10000; ++i)
+            board.removeAll(random.nextInt(slots));
+        for (Thread thread : threads)
+            thread.join();
+
+        boolean[][] expected = new boolean[players][slots];
+        for (int p = 0; p < players; ++p)
+            for (int slot = 0; slot < slots; ++slot)
+                expected[p][slot] = board.has(p, slot);
+        assertConsistent(board, expected);
+    }
+}